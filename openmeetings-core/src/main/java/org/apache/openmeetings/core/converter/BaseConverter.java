@@ -38,6 +38,10 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,6 +67,7 @@ public abstract class BaseConverter {
 	public static final String EXEC_EXT = System.getProperty("os.name").toUpperCase(Locale.ROOT).indexOf("WINDOWS") < 0 ? "" : ".exe";
 	private static final int MINUTE_MULTIPLIER = 60 * 1000;
 	public static final int TIME_TO_WAIT_FOR_FRAME = 15 * MINUTE_MULTIPLIER;
+	private static final long DB_CHECK_INTERVAL = 10 * 1000L;
 	public static final double HALF_STEP = 1. / 2;
 
 	@Autowired
@@ -196,41 +201,64 @@ public abstract class BaseConverter {
 		}
 	}
 
+	/**
+	 * Waits until the chunk is stopped, the wait is woken up by chunk stop notification,
+	 * DB is re-checked every {@link #DB_CHECK_INTERVAL} milliseconds in case notification was missed
+	 *
+	 * @param chunkId - id of the chunk to wait for
+	 * @return stopped chunk
+	 * @throws InterruptedException in case wait was interrupted
+	 */
 	protected RecordingChunk waitForTheStream(long chunkId) throws InterruptedException {
-		RecordingChunk chunk = chunkDao.get(chunkId);
-		if (chunk.getStreamStatus() != Status.STOPPED) {
-			log.debug("### Chunk Stream not yet written to disk {}", chunkId);
-			long counter = 0;
-			long maxTimestamp = 0;
-			while(true) {
-				log.trace("### Stream not yet written Thread Sleep - {}", chunkId);
-
-				chunk = chunkDao.get(chunkId);
-
-				if (chunk.getStreamStatus() == Status.STOPPED) {
-					printChunkInfo(chunk, "Stream now written");
-					log.debug("### Thread continue ... " );
-					break;
-				} else {
-					File chunkFlv = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
-					if (chunkFlv.exists() && maxTimestamp < chunkFlv.lastModified()) {
-						maxTimestamp = chunkFlv.lastModified();
+		CompletableFuture<Long> stopped = RecordingChunkDao.onStop(chunkId);
+		try {
+			RecordingChunk chunk = chunkDao.get(chunkId);
+			if (chunk.getStreamStatus() != Status.STOPPED) {
+				log.debug("### Chunk Stream not yet written to disk {}", chunkId);
+				long counter = 0;
+				long maxTimestamp = 0;
+				while(true) {
+					log.trace("### Stream not yet written, waiting - {}", chunkId);
+					if (stopped.isDone()) {
+						// stop was already signalled, but DB doesn't reflect it yet
+						Thread.sleep(DB_CHECK_INTERVAL);
+					} else {
+						try {
+							stopped.get(DB_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+						} catch (TimeoutException e) {
+							// fallback DB check
+						} catch (ExecutionException e) {
+							log.warn("Unexpected error while waiting for the chunk {}", chunkId, e);
+						}
 					}
-					if (maxTimestamp + TIME_TO_WAIT_FOR_FRAME < System.currentTimeMillis()) {
-						log.debug("### long time without any update, closing ... ");
-						chunk.setStreamStatus(Status.STOPPED);
-						chunkDao.update(chunk);
+
+					chunk = chunkDao.get(chunkId);
+
+					if (chunk.getStreamStatus() == Status.STOPPED) {
+						printChunkInfo(chunk, "Stream now written");
+						log.debug("### Thread continue ... " );
 						break;
+					} else {
+						File chunkFlv = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
+						if (chunkFlv.exists() && maxTimestamp < chunkFlv.lastModified()) {
+							maxTimestamp = chunkFlv.lastModified();
+						}
+						if (maxTimestamp + TIME_TO_WAIT_FOR_FRAME < System.currentTimeMillis()) {
+							log.debug("### long time without any update, closing ... ");
+							chunk.setStreamStatus(Status.STOPPED);
+							chunkDao.update(chunk);
+							break;
+						}
+					}
+					if (++counter % 10 == 0) {
+						printChunkInfo(chunk, "Still waiting");
 					}
 				}
-				if (++counter % 1000 == 0) {
-					printChunkInfo(chunk, "Still waiting");
-				}
-
-				Thread.sleep(100L);
 			}
+			return chunk;
+		} finally {
+			RecordingChunkDao.release(chunkId);
 		}
-		return chunk;
 	}
 
 	private void stripAudioFirstPass(Recording recording,
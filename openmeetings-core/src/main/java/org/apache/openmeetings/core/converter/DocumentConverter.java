@@ -21,7 +21,6 @@ package org.apache.openmeetings.core.converter;
 import static org.apache.commons.io.FileUtils.copyFile;
 import static org.apache.openmeetings.core.converter.BaseConverter.HALF_STEP;
 import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PDF;
-import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_OFFICE;
 
 import java.io.File;
 import java.util.Optional;
@@ -53,6 +52,8 @@ public class DocumentConverter {
 	protected ConfigurationDao cfgDao;
 	@Autowired
 	private ImageConverter imageConverter;
+	@Autowired
+	private OfficeProcessPool officePool;
 
 	public ProcessResultList convertPDF(FileItem f, StoredFile sf) throws Exception {
 		return convertPDF(f, sf, new ProcessResultList(), Optional.empty());
@@ -103,8 +104,7 @@ public class DocumentConverter {
 	 */
 	public ProcessResult doJodConvert(File in, File out) {
 		try {
-			createOfficeManager(cfgDao.getString(CONFIG_PATH_OFFICE, null)
-					, man -> LocalConverter.make(man).convert(in).to(out));
+			LocalConverter.make(officePool).convert(in).to(out).execute();
 		} catch (Exception ex) {
 			log.error(JOD_JOD_NAME, ex);
 			return new ProcessResult(JOD_JOD_NAME, ex.getMessage(), ex);
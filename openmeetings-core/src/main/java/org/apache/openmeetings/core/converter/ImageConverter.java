@@ -33,10 +33,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.DoubleConsumer;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.io.FileUtils;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
@@ -47,6 +58,8 @@ import org.apache.openmeetings.util.StoredFile;
 import org.apache.openmeetings.util.process.ProcessHelper;
 import org.apache.openmeetings.util.process.ProcessResult;
 import org.apache.openmeetings.util.process.ProcessResultList;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TIFF;
 import org.apache.tika.parser.ParseContext;
@@ -62,6 +75,13 @@ import org.xml.sax.helpers.DefaultHandler;
 public class ImageConverter extends BaseConverter {
 	private static final Logger log = LoggerFactory.getLogger(ImageConverter.class);
 	private static final String PAGE_TMPLT = DOC_PAGE_PREFIX + "-%04d." + EXTENSION_PNG;
+	private static final int MIN_PAGES_PER_RANGE = 5;
+	private static final int RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+	private final ExecutorService renderPool = Executors.newFixedThreadPool(RENDER_THREADS, r -> {
+		Thread t = new Thread(r, "pdf-render");
+		t.setDaemon(true);
+		return t;
+	});
 
 	@Autowired
 	private UserDao userDao;
@@ -170,30 +190,35 @@ public class ImageConverter extends BaseConverter {
 	/**
 	 * Converts PDF document to the series of images
 	 *
+	 * Document is split into page ranges, ranges are rendered in parallel
+	 * (first range is always submitted first, so first slides are ready ASAP)
+	 * progress is reported as each range is done
+	 *
 	 * @param f - {@link FileItem} object to write number of pages and size
 	 * @param pdf - input PDF document
 	 * @param logs - logs of the conversion
+	 * @param progress - optional progress consumer
 	 * @return - result of conversion
 	 * @throws IOException in case IO exception occurred
 	 */
 	public ProcessResultList convertDocument(FileItem f, File pdf, ProcessResultList logs, Optional<DoubleConsumer> progress) throws IOException {
 		log.debug("convertDocument");
-		String[] argv = new String[] {
-			getPathToConvert()
-			, "-density", getDpi()
-			, pdf.getCanonicalPath()
-			, "+profile", "'*'"
-			, "-quality", getQuality()
-			, new File(pdf.getParentFile(), PAGE_TMPLT).getCanonicalPath()
-			};
-		ProcessResult res = ProcessHelper.executeScript("convert PDF to images", argv);
-		logs.add(res);
-		progress.ifPresent(theProgress -> theProgress.accept(1. / 4));
-		if (res.isOk()) {
+		final int count = getPageCount(pdf);
+		boolean ok;
+		if (count < 2 * MIN_PAGES_PER_RANGE) {
+			ProcessResult res = convertPages(pdf, -1, -1);
+			logs.add(res);
+			ok = res.isOk();
+			progress.ifPresent(theProgress -> theProgress.accept(1. / 4));
+		} else {
+			ok = convertRanges(pdf, count, logs, progress);
+		}
+		if (ok) {
 			File[] pages = pdf.getParentFile().listFiles(fi -> fi.isFile() && fi.getName().startsWith(DOC_PAGE_PREFIX) && fi.getName().endsWith(EXTENSION_PNG));
 			if (pages == null || pages.length == 0) {
 				f.setCount(0);
 			} else {
+				Arrays.sort(pages);
 				f.setCount(pages.length);
 				logs.add(initSize(f, pages[0], PNG_MIME_TYPE));
 			}
@@ -201,4 +226,74 @@ public class ImageConverter extends BaseConverter {
 		progress.ifPresent(theProgress -> theProgress.accept(1. / 4));
 		return logs;
 	}
+
+	private boolean convertRanges(File pdf, int count, ProcessResultList logs, Optional<DoubleConsumer> progress) {
+		final int size = Math.max(MIN_PAGES_PER_RANGE, (count + RENDER_THREADS - 1) / RENDER_THREADS);
+		CompletionService<ProcessResult> service = new ExecutorCompletionService<>(renderPool);
+		List<Future<ProcessResult>> futures = new ArrayList<>();
+		for (int start = 0; start < count; start += size) {
+			final int first = start;
+			final int last = Math.min(start + size, count) - 1;
+			futures.add(service.submit(() -> convertPages(pdf, first, last)));
+		}
+		ProcessResult[] results = new ProcessResult[futures.size()];
+		boolean ok = true;
+		try {
+			for (int i = 0; i < results.length; ++i) {
+				Future<ProcessResult> done = service.take();
+				int idx = futures.indexOf(done);
+				results[idx] = done.get();
+				ok &= results[idx].isOk();
+				final double part = (1. / 4) * (Math.min((idx + 1) * size, count) - idx * size) / count;
+				progress.ifPresent(theProgress -> theProgress.accept(part));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			ok = false;
+		} catch (ExecutionException e) {
+			log.error("Unexpected error while rendering pages", e);
+			ok = false;
+		} finally {
+			futures.forEach(fut -> fut.cancel(true));
+		}
+		for (ProcessResult res : results) {
+			if (res != null) {
+				logs.add(res);
+			}
+		}
+		return ok;
+	}
+
+	/**
+	 * @param first - zero based index of the first page to render, whole document is rendered if negative
+	 * @param last - zero based index of the last page to render
+	 */
+	private ProcessResult convertPages(File pdf, int first, int last) throws IOException {
+		String in = pdf.getCanonicalPath();
+		List<String> argv = new ArrayList<>(List.of(getPathToConvert(), "-density", getDpi()));
+		if (first < 0) {
+			argv.add(in);
+		} else {
+			argv.addAll(List.of(String.format("%s[%s-%s]", in, first, last), "-scene", String.valueOf(first)));
+		}
+		argv.addAll(List.of("+profile", "'*'"
+				, "-quality", getQuality()
+				, new File(pdf.getParentFile(), PAGE_TMPLT).getCanonicalPath()));
+		return ProcessHelper.executeScript(first < 0 ? "convert PDF to images" : String.format("convert PDF pages %s-%s to images", first, last)
+				, argv.toArray(new String[0]));
+	}
+
+	private static int getPageCount(File pdf) {
+		try (PDDocument doc = PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly())) {
+			return doc.getNumberOfPages();
+		} catch (Exception e) {
+			log.warn("Unable to get number of pages, document will be rendered at once", e);
+		}
+		return -1;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		renderPool.shutdownNow();
+	}
 }
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_MAX_TASKS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_PORT_START;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_TASK_TIMEOUT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_OFFICE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getExtProcessTtl;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.wicket.util.string.Strings;
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.core.office.OfficeManager;
+import org.jodconverter.core.task.OfficeTask;
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Long-living pool of office processes shared by all document conversions
+ *
+ * Processes are started on first conversion and are restarted by JOD in case
+ * of crash, timeout or after {@link #DEFAULT_MAX_TASKS} conversions. Pool is
+ * re-created in case office related configuration was changed, previous pool
+ * is stopped once conversions running on it are completed, new pool is started
+ * only after that, since it might use the same ports.
+ */
+@Component
+public class OfficeProcessPool implements OfficeManager {
+	private static final Logger log = LoggerFactory.getLogger(OfficeProcessPool.class);
+	public static final int DEFAULT_POOL_SIZE = 2;
+	public static final int DEFAULT_PORT_START = 2002;
+	public static final int DEFAULT_TASK_TIMEOUT = 120; // seconds
+	public static final int DEFAULT_MAX_TASKS = 200;
+	private final LongAdder tasks = new LongAdder();
+	private final LongAdder queueTime = new LongAdder();
+	private final LongAdder convertTime = new LongAdder();
+	private final AtomicLong maxQueueTime = new AtomicLong();
+	private final AtomicLong maxConvertTime = new AtomicLong();
+
+	@Autowired
+	private ConfigurationDao cfgDao;
+
+	private Pool pool;
+
+	private static class Pool {
+		private final OfficeManager manager;
+		private final List<Object> settings;
+		private Pool prev; // guarded by this
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicBoolean stopping = new AtomicBoolean();
+		private final CountDownLatch stopped = new CountDownLatch(1);
+		private volatile boolean started;
+		private volatile boolean retired;
+
+		Pool(OfficeManager manager, List<Object> settings, Pool prev) {
+			this.manager = manager;
+			this.settings = settings;
+			this.prev = prev;
+		}
+
+		/**
+		 * Processes are started by the first conversion, previous pool is
+		 * stopped first, since its processes might use the same ports
+		 */
+		synchronized void start() throws OfficeException {
+			if (started) {
+				return;
+			}
+			if (prev != null) {
+				prev.await();
+				prev = null;
+			}
+			manager.start();
+			started = true;
+			if (stopping.get()) {
+				manager.stop();
+			}
+		}
+
+		boolean isBroken() {
+			return started && !manager.isRunning();
+		}
+
+		/**
+		 * Pool will be stopped as soon as there are no active conversions
+		 */
+		void retire() {
+			retired = true;
+			if (active.get() == 0) {
+				stop();
+			}
+		}
+
+		void release() {
+			if (active.decrementAndGet() == 0 && retired) {
+				stop();
+			}
+		}
+
+		void stop() {
+			if (stopping.compareAndSet(false, true)) {
+				try {
+					if (started) {
+						manager.stop();
+					}
+				} catch (OfficeException e) {
+					log.warn("Unexpected error while stopping office pool", e);
+				} finally {
+					stopped.countDown();
+				}
+			}
+		}
+
+		/**
+		 * Waits for active conversions to complete, the pool is stopped forcibly after timeout
+		 */
+		private void await() {
+			try {
+				if (!stopped.await(getExtProcessTtl(), TimeUnit.MINUTES)) {
+					log.warn("Conversions of previous office pool are not completed in time, stopping");
+					stop();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stop();
+			}
+		}
+	}
+
+	/**
+	 * Executes the task using one of the pooled office processes, the call blocks
+	 * until task is completed
+	 *
+	 * @param task - the task to execute
+	 * @throws OfficeException in case of any error
+	 */
+	@Override
+	public void execute(final OfficeTask task) throws OfficeException {
+		final long queued = System.nanoTime();
+		final Pool p = acquire();
+		try {
+			p.manager.execute(ctx -> {
+				long started = System.nanoTime();
+				update(queueTime, maxQueueTime, started - queued);
+				try {
+					task.execute(ctx);
+				} finally {
+					tasks.increment();
+					update(convertTime, maxConvertTime, System.nanoTime() - started);
+				}
+			});
+		} finally {
+			p.release();
+		}
+		log.debug("Task is done, {}", getStats());
+	}
+
+	private static void update(LongAdder total, AtomicLong max, long value) {
+		total.add(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	private Pool acquire() throws OfficeException {
+		Pool p;
+		synchronized (this) {
+			p = getPool();
+			p.active.incrementAndGet();
+		}
+		try {
+			// processes are started outside of the lock
+			p.start();
+		} catch (OfficeException|RuntimeException e) {
+			p.release();
+			throw e;
+		}
+		return p;
+	}
+
+	private synchronized Pool getPool() {
+		List<Object> cur = List.of(
+				cfgDao.getString(CONFIG_PATH_OFFICE, "")
+				, Math.max(1, cfgDao.getInt(CONFIG_OFFICE_POOL_SIZE, DEFAULT_POOL_SIZE))
+				, cfgDao.getInt(CONFIG_OFFICE_PORT_START, DEFAULT_PORT_START)
+				, Math.max(1, cfgDao.getInt(CONFIG_OFFICE_TASK_TIMEOUT, DEFAULT_TASK_TIMEOUT))
+				, Math.max(1, cfgDao.getInt(CONFIG_OFFICE_MAX_TASKS, DEFAULT_MAX_TASKS)));
+		Pool prev = null;
+		if (pool != null && (pool.isBroken() || !cur.equals(pool.settings))) {
+			log.info("Office pool is not running or settings were changed, restarting");
+			// conversions in progress are completed by the old pool
+			prev = pool;
+			prev.retire();
+			pool = null;
+		}
+		if (pool == null) {
+			pool = new Pool(create(cur), cur, prev);
+		}
+		return pool;
+	}
+
+	private static OfficeManager create(List<Object> cfg) {
+		String officePath = (String)cfg.get(0);
+		int size = (Integer)cfg.get(1);
+		int portStart = (Integer)cfg.get(2);
+		int[] ports = new int[size];
+		for (int i = 0; i < size; ++i) {
+			ports[i] = portStart + i;
+		}
+		LocalOfficeManager.Builder builder = LocalOfficeManager.builder()
+				.portNumbers(ports)
+				.taskExecutionTimeout(TimeUnit.SECONDS.toMillis((Integer)cfg.get(3)))
+				.taskQueueTimeout(TimeUnit.MINUTES.toMillis(getExtProcessTtl()))
+				.maxTasksPerProcess((Integer)cfg.get(4));
+		if (!Strings.isEmpty(officePath)) {
+			builder.officeHome(officePath);
+		}
+		log.info("Office pool is created, processes: {}, ports: {}-{}", size, portStart, portStart + size - 1);
+		return builder.build();
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return pool != null && pool.manager.isRunning();
+	}
+
+	@Override
+	public void start() throws OfficeException {
+		Pool p = acquire();
+		p.release();
+	}
+
+	@Override
+	@PreDestroy
+	public synchronized void stop() {
+		if (pool == null) {
+			return;
+		}
+		pool.stop();
+		pool = null;
+	}
+
+	/**
+	 * @return number of conversions performed
+	 */
+	public long getTasks() {
+		return tasks.sum();
+	}
+
+	/**
+	 * @return average time (in milliseconds) conversion was waiting for free office process
+	 */
+	public double getAvgQueueTime() {
+		return avg(queueTime);
+	}
+
+	/**
+	 * @return average time (in milliseconds) of the conversion itself
+	 */
+	public double getAvgConvertTime() {
+		return avg(convertTime);
+	}
+
+	public double getMaxQueueTime() {
+		return maxQueueTime.get() / 1_000_000.;
+	}
+
+	public double getMaxConvertTime() {
+		return maxConvertTime.get() / 1_000_000.;
+	}
+
+	private double avg(LongAdder total) {
+		long count = tasks.sum();
+		return count == 0 ? 0 : total.sum() / (count * 1_000_000.);
+	}
+
+	public String getStats() {
+		return String.format("OfficeProcessPool [tasks: %s, avg queue: %.2fms, max queue: %.2fms, avg convert: %.2fms, max convert: %.2fms]"
+				, getTasks(), getAvgQueueTime(), getMaxQueueTime(), getAvgConvertTime(), getMaxConvertTime());
+	}
+}
@@ -21,13 +21,25 @@ package org.apache.openmeetings.core.data.file;
 import static java.util.UUID.randomUUID;
 import static org.apache.commons.io.FileUtils.copyFile;
 import static org.apache.commons.io.FileUtils.copyInputStreamToFile;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_MP4;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PDF;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PNG;
 import static org.apache.openmeetings.util.OmFileHelper.getFileExt;
+import static org.apache.openmeetings.util.process.ProcessResult.ZERO;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Optional;
 import java.util.function.DoubleConsumer;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.openmeetings.core.converter.DocumentConverter;
 import org.apache.openmeetings.core.converter.ImageConverter;
 import org.apache.openmeetings.core.converter.VideoConverter;
@@ -46,6 +58,9 @@ import org.springframework.stereotype.Component;
 @Component
 public class FileProcessor {
 	private static final Logger log = LoggerFactory.getLogger(FileProcessor.class);
+	private static final String CONTENT_DIGEST = "SHA-256";
+	// empty marker, written once conversion is completed without errors
+	private static final String EXTENSION_CONVERTED = "converted";
 
 	//Spring loaded Beans
 	@Autowired
@@ -66,7 +81,9 @@ public class FileProcessor {
 		File temp = null;
 		try {
 			temp = File.createTempFile(String.format("upload_%s", hash), ".tmp");
-			copyInputStreamToFile(is, temp);
+			MessageDigest digest = MessageDigest.getInstance(CONTENT_DIGEST);
+			copyInputStreamToFile(new DigestInputStream(is, digest), temp);
+			f.setContentHash(Hex.encodeHexString(digest.digest()));
 
 			String ext = getFileExt(f.getName());
 			log.debug("file extension: {}", ext);
@@ -88,7 +105,12 @@ public class FileProcessor {
 			}
 			f.setHash(hash);
 
-			processFile(f, sf, temp, logs, progress);
+			if (reuse(f, sf, logs)) {
+				progress.ifPresent(theProgress -> theProgress.accept(1.));
+				f = fileDao.updateStorageSize(f);
+			} else {
+				processFile(f, sf, temp, logs, progress);
+			}
 		} catch (Exception e) {
 			log.debug("Error while processing the file", e);
 			throw e;
@@ -100,6 +122,84 @@ public class FileProcessor {
 		return logs;
 	}
 
+	/**
+	 * Identical binaries are converted only once: files of the already converted item
+	 * with the same content are linked (copied if links are not supported) into
+	 * the folder of the new item. Hard links are reference counted by the file system,
+	 * so deletion of any item doesn't affect the others.
+	 * Only items converted successfully are used as the source, see {@link #isConverted(FileItem)}
+	 *
+	 * @return {@code true} if converted files were reused
+	 */
+	private boolean reuse(FileItem f, StoredFile sf, ProcessResultList logs) {
+		if (Type.POLL_CHART == f.getType()) {
+			return false;
+		}
+		for (FileItem src : fileDao.getByContentHash(f.getContentHash(), f.getType())) {
+			File orig = src.getFile(sf.getExt());
+			if (orig == null || !orig.exists() || !isConverted(src)) {
+				continue;
+			}
+			File srcDir = orig.getParentFile();
+			File dir = f.getFile(sf.getExt()).getParentFile();
+			try {
+				File[] files = srcDir.listFiles(File::isFile);
+				if (files == null || (!dir.exists() && !dir.mkdirs())) {
+					continue;
+				}
+				for (File file : files) {
+					String name = file.getName();
+					if (name.startsWith(src.getHash())) {
+						name = f.getHash() + name.substring(src.getHash().length());
+					}
+					link(file.toPath(), new File(dir, name).toPath());
+				}
+			} catch (IOException e) {
+				log.warn("Unable to reuse files of {}, will convert", src, e);
+				deleteQuietly(dir);
+				continue;
+			}
+			f.setCount(src.getCount());
+			f.setWidth(src.getWidth());
+			f.setHeight(src.getHeight());
+			logs.add(new ProcessResult("reuse", String.format("Converted files of item %s were reused", src.getId()), null)
+					.setExitCode(ZERO));
+			log.debug("Converted files of {} were reused for {}", src, f);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param f - the item to check
+	 * @return {@code true} if conversion of the item was completed successfully
+	 *  and all expected files are in place
+	 */
+	private static boolean isConverted(FileItem f) {
+		if (!f.exists(EXTENSION_CONVERTED)) {
+			return false;
+		}
+		switch (f.getType()) {
+			case IMAGE:
+				return f.exists(EXTENSION_PNG);
+			case VIDEO:
+				return f.exists(EXTENSION_MP4) && f.exists(EXTENSION_PNG);
+			case PRESENTATION:
+				return f.getCount() > 0 && f.exists(EXTENSION_PDF);
+			default:
+				return false;
+		}
+	}
+
+	private static void link(Path src, Path target) throws IOException {
+		try {
+			Files.createLink(target, src);
+		} catch (UnsupportedOperationException | IOException e) {
+			log.trace("Unable to create link, will copy", e);
+			Files.copy(src, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
 	private void processFile(FileItem f, StoredFile sf, File temp, ProcessResultList logs, Optional<DoubleConsumer> progress) throws Exception {
 		try {
 			File file = f.getFile(sf.getExt());
@@ -131,8 +231,11 @@ public class FileProcessor {
 				default:
 					break;
 			}
+			if (!logs.hasError() && !f.getFile(EXTENSION_CONVERTED).createNewFile()) {
+				log.debug("Conversion marker already exists for {}", f);
+			}
 		} finally {
-			f = fileDao.update(f);
+			f = fileDao.updateStorageSize(f);
 			log.debug("fileId: {}", f.getId());
 		}
 	}
@@ -21,7 +21,9 @@ package org.apache.openmeetings.core.mail;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_REPLY_TO_ORGANIZER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE_LIMIT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_TIMEOUT;
@@ -34,12 +36,25 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.activation.DataHandler;
+import javax.annotation.PreDestroy;
 import javax.mail.Authenticator;
 import javax.mail.BodyPart;
 import javax.mail.Message;
@@ -63,7 +78,6 @@ import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
 /**
@@ -73,18 +87,28 @@ import org.springframework.stereotype.Component;
  * For a documentation about Javax mail please see fro example:
  * http://connector.sourceforge.net/doc-files/Properties.html
  *
+ * Messages are sent by dedicated pool of threads, each thread is re-using connected
+ * {@link Transport} while mail queue is being processed.
+ *
  */
 @Component("mailHandler")
 public class MailHandler {
 	private static final Logger log = LoggerFactory.getLogger(MailHandler.class);
 	private static final int MAIL_SEND_TIMEOUT = 60 * 60 * 1000; // 1 hour
 	private static final int MAXIMUM_ERROR_COUNT = 5;
+	private static final int BATCH_SIZE = 50;
+	public static final int DEFAULT_POOL_SIZE = 2;
+	public static final int DEFAULT_RATE_LIMIT = 0; // messages per minute, 0 - unlimited
+	private final Queue<Transport> transports = new ConcurrentLinkedQueue<>();
+	private final AtomicLong nextSlot = new AtomicLong();
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder sendTime = new LongAdder();
+	private final ThreadPoolExecutor executor = createExecutor();
 
 	@Autowired
 	private ConfigurationDao cfgDao;
 	@Autowired
-	private TaskExecutor taskExecutor;
-	@Autowired
 	private MailMessageDao mailMessageDao;
 
 	private String smtpServer;
@@ -96,6 +120,21 @@ public class MailHandler {
 	private boolean mailAddReplyTo;
 	private int smtpConnectionTimeOut;
 	private int smtpTimeOut;
+	private int poolSize = DEFAULT_POOL_SIZE;
+	private int rateLimit = DEFAULT_RATE_LIMIT;
+
+	private static ThreadPoolExecutor createExecutor() {
+		final AtomicInteger idx = new AtomicInteger();
+		ThreadFactory tf = r -> {
+			Thread t = new Thread(r, "mail-sender-" + idx.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		ThreadPoolExecutor e = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE, 60, TimeUnit.SECONDS
+				, new LinkedBlockingQueue<>(), tf);
+		e.allowCoreThreadTimeOut(true);
+		return e;
+	}
 
 	private void init() {
 		smtpServer = cfgDao.getString(CONFIG_SMTP_SERVER, null);
@@ -107,6 +146,18 @@ public class MailHandler {
 		mailAddReplyTo = cfgDao.getBool(CONFIG_REPLY_TO_ORGANIZER, true);
 		smtpConnectionTimeOut = cfgDao.getInt(CONFIG_SMTP_TIMEOUT_CON, 30000);
 		smtpTimeOut = cfgDao.getInt(CONFIG_SMTP_TIMEOUT, 30000);
+		rateLimit = cfgDao.getInt(CONFIG_SMTP_RATE_LIMIT, DEFAULT_RATE_LIMIT);
+		int size = Math.max(1, cfgDao.getInt(CONFIG_SMTP_POOL_SIZE, DEFAULT_POOL_SIZE));
+		if (size != poolSize) {
+			poolSize = size;
+			if (size > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(size);
+				executor.setCorePoolSize(size);
+			} else {
+				executor.setCorePoolSize(size);
+				executor.setMaximumPoolSize(size);
+			}
+		}
 	}
 
 	public void init(String smtpServer, int smtpPort, String from, String mailAuthUser, String mailAuthPass, boolean mailTls, boolean mailAddReplyTo) {
@@ -167,11 +218,7 @@ public class MailHandler {
 		return msg;
 	}
 
-	public MimeMessage getBasicMimeMessage() throws Exception {
-		log.debug("getBasicMimeMessage");
-		if (smtpServer == null) {
-			init();
-		}
+	private Session getSession() {
 		Properties props = new Properties(System.getProperties());
 
 		props.put("mail.smtp.host", smtpServer);
@@ -198,9 +245,16 @@ public class MailHandler {
 			// not use SMTP Authentication
 			session = Session.getInstance(props, null);
 		}
+		return session;
+	}
 
+	public MimeMessage getBasicMimeMessage() throws Exception {
+		log.debug("getBasicMimeMessage");
+		if (smtpServer == null) {
+			init();
+		}
 		// Building MimeMessage
-		MimeMessage msg = new MimeMessage(session);
+		MimeMessage msg = new MimeMessage(getSession());
 		msg.setFrom(new InternetAddress(from));
 		return msg;
 	}
@@ -240,34 +294,110 @@ public class MailHandler {
 				m.setStatus(Status.SENDING);
 				mailMessageDao.update(m, null);
 			}
-			taskExecutor.execute(() -> {
-				log.debug("Message sending in progress");
-				log.debug("  To: {}", m.getRecipients());
-				log.debug("  Subject: {}", m.getSubject());
-
-				// -- Send the message --
-				try {
-					Transport.send(getMimeMessage(m));
-					m.setLastError("");
-					m.setStatus(Status.DONE);
-				} catch (Exception e) {
-					log.error("Error while sending message", e);
-					m.setErrorCount(m.getErrorCount() + 1);
-					StringWriter sw = new StringWriter();
-					e.printStackTrace(new PrintWriter(sw));
-					m.setLastError(sw.getBuffer().toString());
-					m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
-				}
-				if (m.getId() != null) {
-					mailMessageDao.update(m, null);
-				}
-			});
+			// immediate sends are not followed by sendMails cleanup, connection should not stay in pool
+			executor.execute(() -> close(deliver(borrow(), m)));
 		} else {
 			m.setStatus(Status.NONE);
 			mailMessageDao.update(m, null);
 		}
 	}
 
+	private Transport borrow() {
+		return transports.poll();
+	}
+
+	private void release(Transport t) {
+		if (t != null) {
+			transports.offer(t);
+		}
+	}
+
+	private static void close(Transport t) {
+		if (t == null) {
+			return;
+		}
+		try {
+			t.close();
+		} catch (MessagingException e) {
+			log.debug("Error while closing SMTP connection", e);
+		}
+	}
+
+	private void closeTransports() {
+		Transport t;
+		while ((t = borrow()) != null) {
+			close(t);
+		}
+	}
+
+	/**
+	 * Waits for the next free slot according to configured rate limit
+	 */
+	private void acquireSlot() throws InterruptedException {
+		if (rateLimit < 1) {
+			return;
+		}
+		final long interval = TimeUnit.MINUTES.toNanos(1) / rateLimit;
+		final long now = System.nanoTime();
+		long slot = Math.max(now, nextSlot.getAndUpdate(n -> Math.max(n, now) + interval));
+		if (slot > now) {
+			TimeUnit.NANOSECONDS.sleep(slot - now);
+		}
+	}
+
+	/**
+	 * Sends the message using given transport, connection is being established if necessary
+	 *
+	 * @param inT - transport to use, can be {@code null}
+	 * @param m - message to send
+	 * @return transport which can be re-used for next message, or {@code null}
+	 */
+	private Transport deliver(Transport inT, MailMessage m) {
+		log.debug("Message sending in progress");
+		log.debug("  To: {}", m.getRecipients());
+		log.debug("  Subject: {}", m.getSubject());
+
+		Transport t = inT;
+		final long start = System.nanoTime();
+		// -- Send the message --
+		try {
+			acquireSlot();
+			MimeMessage msg = getMimeMessage(m);
+			if (t == null) {
+				t = msg.getSession().getTransport("smtp");
+			}
+			if (!t.isConnected()) {
+				if (!Strings.isEmpty(mailAuthUser) && !Strings.isEmpty(mailAuthPass)) {
+					t.connect(smtpServer, smtpPort, mailAuthUser, mailAuthPass);
+				} else {
+					t.connect();
+				}
+			}
+			msg.saveChanges();
+			t.sendMessage(msg, msg.getAllRecipients());
+			m.setLastError("");
+			m.setStatus(Status.DONE);
+			sent.increment();
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			log.error("Error while sending message", e);
+			failed.increment();
+			m.setErrorCount(m.getErrorCount() + 1);
+			StringWriter sw = new StringWriter();
+			e.printStackTrace(new PrintWriter(sw));
+			m.setLastError(sw.getBuffer().toString());
+			m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
+		} finally {
+			sendTime.add(System.nanoTime() - start);
+		}
+		if (m.getId() != null) {
+			mailMessageDao.update(m, null);
+		}
+		return t;
+	}
+
 	public void resetSendingStatus() {
 		log.trace("resetSendingStatus enter ...");
 		if (!isInitComplete()) {
@@ -282,14 +412,88 @@ public class MailHandler {
 	public void sendMails() {
 		init();
 		log.trace("sendMails enter ...");
-		List<MailMessage> list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
-		if (!list.isEmpty()) {
-			log.debug("Number of emails in init queue {}", list.size());
+		closeTransports(); // settings might be changed
+		try {
+			List<MailMessage> list = mailMessageDao.claim(BATCH_SIZE);
 			while (!list.isEmpty()) {
-				send(list.get(0), true);
-				list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
+				log.debug("Number of emails claimed {}", list.size());
+				dispatch(list);
+				list = mailMessageDao.claim(BATCH_SIZE);
 			}
-			log.debug("... sendMails done.");
+		} finally {
+			closeTransports();
 		}
+		log.debug("... sendMails done, {}", getStats());
+	}
+
+	/**
+	 * Sends the batch using up to {@link #poolSize} threads, each using its own connection
+	 *
+	 * @param list - the messages to be sent
+	 */
+	private void dispatch(List<MailMessage> list) {
+		final Queue<MailMessage> queue = new ConcurrentLinkedQueue<>(list);
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int i = 0; i < Math.min(poolSize, list.size()); ++i) {
+			tasks.add(executor.submit(() -> {
+				Transport t = borrow();
+				MailMessage m;
+				while ((m = queue.poll()) != null) {
+					t = deliver(t, m);
+				}
+				release(t);
+			}));
+		}
+		for (Future<?> f : tasks) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				log.error("Unexpected error while sending mails", e);
+			}
+		}
+	}
+
+	/**
+	 * @return number of messages sent successfully
+	 */
+	public long getSent() {
+		return sent.sum();
+	}
+
+	/**
+	 * @return number of failed send attempts
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * @return messages per second (per sending thread)
+	 */
+	public double getThroughput() {
+		long time = sendTime.sum();
+		return time == 0 ? 0 : (sent.sum() + failed.sum()) * 1_000_000_000. / time;
+	}
+
+	/**
+	 * @return part of send attempts which failed, from 0 to 1
+	 */
+	public double getErrorRate() {
+		long total = sent.sum() + failed.sum();
+		return total == 0 ? 0 : (double)failed.sum() / total;
+	}
+
+	public String getStats() {
+		return String.format("MailHandler [sent: %s, failed: %s, throughput: %.2f/s, error rate: %.2f%%]"
+				, getSent(), getFailed(), getThroughput(), getErrorRate() * 100);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+		closeTransports();
 	}
 }
@@ -18,8 +18,13 @@
  */
 package org.apache.openmeetings.core.util;
 
+import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.openmeetings.IApplication;
@@ -27,10 +32,13 @@ import org.apache.openmeetings.core.util.ws.WsMessageChat;
 import org.apache.openmeetings.core.util.ws.WsMessageChat2All;
 import org.apache.openmeetings.core.util.ws.WsMessageChat2User;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.room.Room.Right;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.manager.IClientManager;
 import org.apache.openmeetings.db.util.FormatHelper;
+import org.apache.openmeetings.db.util.LocaleHelper;
+import org.apache.openmeetings.util.NullStringer;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
 import com.github.openjson.JSONArray;
@@ -70,7 +78,7 @@ public class ChatWebSocketHelper extends WebSocketHelper {
 				uFmt.accept(from, m.getFromUser());
 			}
 			arr.put(setDates(setScope(new JSONObject(), m, curUser.getId())
-					.put("id", m.getId())
+					.put("id", m.getId() == null ? m.getUid() : m.getId()) // buffered messages have no ID yet
 					.put("message", smsg)
 					.put("from", from)
 					.put("actions", curUser.getId().equals(m.getFromUser().getId()) ? "short" : "full")
@@ -102,6 +110,24 @@ public class ChatWebSocketHelper extends WebSocketHelper {
 		sendRoom(m, msg, true);
 	}
 
+	/**
+	 * Chat message is rendered once per (time zone, locale) combination, every client
+	 * having the same combination gets the same text. Shared message is never modified.
+	 *
+	 * @param m - chat message
+	 * @param msg - JSON message to be sent
+	 * @return function to get client specific text of the message
+	 */
+	private static Function<Client, String> render(ChatMessage m, JSONObject msg) {
+		final String base = msg.toString(new NullStringer());
+		final Map<String, String> variants = new ConcurrentHashMap<>();
+		return c -> {
+			final User u = c.getUser();
+			String key = getTimeZone(u).getID() + "|" + LocaleHelper.getLocale(u).toLanguageTag();
+			return variants.computeIfAbsent(key, k -> setDates(new JSONObject(base), m, u, false).toString(new NullStringer()));
+		};
+	}
+
 	private static JSONObject setDates(JSONObject o, ChatMessage m, User u, boolean immediate) {
 		final FastDateFormat fullFmt = FormatHelper.getDateTimeFormat(u);
 		final FastDateFormat dateFmt = FormatHelper.getDateFormat(u);
@@ -119,7 +145,7 @@ public class ChatWebSocketHelper extends WebSocketHelper {
 		}
 		sendRoom(m.getToRoom().getId(), msg
 				, c -> !m.isNeedModeration() || (m.isNeedModeration() && c.hasRight(Right.MODERATOR))
-				, (o, c) -> setDates(o, m, c.getUser(), false));
+				, render(m, msg));
 	}
 
 	public static void sendUser(final Long userId, ChatMessage m, JSONObject msg) {
@@ -130,7 +156,7 @@ public class ChatWebSocketHelper extends WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageChat2User(userId, m, msg));
 		}
-		sendUser(userId, msg, (o, c) -> setDates(o, m, c.getUser(), false), false);
+		sendUser(userId, msg, render(m, msg), false);
 	}
 
 	public static void sendAll(ChatMessage m, JSONObject msg) {
@@ -141,7 +167,8 @@ public class ChatWebSocketHelper extends WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageChat2All(m, msg));
 		}
+		final Function<Client, String> render = render(m, msg);
 		send(a -> ((IApplication)a).getBean(IClientManager.class).list()
-				, (t, c) -> doSend(t, c, msg, (o, cm) -> setDates(o, m, c.getUser(), false), "all"), null);
+				, (t, c) -> doSend(t, render.apply(c), "all"), null);
 	}
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.apache.openmeetings.util.NullStringer;
+
+import com.github.openjson.JSONObject;
+
+/**
+ * Message rendered once to be sent to multiple clients
+ *
+ * All occurrences of {@link #PLACEHOLDER} are replaced with client specific value
+ * during {@link #render(String)}, value should not require JSON escaping (i.e. uid)
+ */
+public class MessageTemplate {
+	public static final String PLACEHOLDER = "__" + UUID.randomUUID().toString() + "__";
+	private static final Pattern SPLIT = Pattern.compile(Pattern.quote(PLACEHOLDER));
+	private final String[] parts;
+	private final int length;
+
+	public MessageTemplate(JSONObject msg) {
+		this(msg.toString(new NullStringer()));
+	}
+
+	public MessageTemplate(String msg) {
+		parts = SPLIT.split(msg, -1);
+		int len = 0;
+		for (String p : parts) {
+			len += p.length();
+		}
+		length = len;
+	}
+
+	public String render(String value) {
+		if (parts.length == 1) {
+			return parts[0];
+		}
+		StringBuilder sb = new StringBuilder(length + (parts.length - 1) * value.length());
+		sb.append(parts[0]);
+		for (int i = 1; i < parts.length; ++i) {
+			sb.append(value).append(parts[i]);
+		}
+		return sb.toString();
+	}
+}
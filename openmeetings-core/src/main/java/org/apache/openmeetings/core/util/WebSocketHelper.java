@@ -23,12 +23,12 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplic
 import java.io.IOException;
 import java.util.Collection;
 import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.apache.openmeetings.IApplication;
+import org.apache.openmeetings.core.util.ws.WsFanout;
 import org.apache.openmeetings.core.util.ws.WsMessageAll;
 import org.apache.openmeetings.core.util.ws.WsMessageRoom;
 import org.apache.openmeetings.core.util.ws.WsMessageRoomMsg;
@@ -91,10 +91,22 @@ public class WebSocketHelper {
 		Executor executor = settings.getWebSocketPushMessageExecutor();
 		final IWebSocketConnection wc = reg.getConnection(app, client.getSessionId(), new PageIdKey(client.getPageId()));
 		if (wc != null && wc.isOpen()) {
-			executor.run(() -> wsc.accept(wc));
+			submit(executor, wc, () -> wsc.accept(wc));
 		}
 	}
 
+	private static String connKey(IWebSocketConnection wc) {
+		return "c-" + wc.getSessionId() + "-" + System.identityHashCode(wc);
+	}
+
+	/**
+	 * Connection specific queue is used to preserve message order and to drop
+	 * oldest messages in case connection is too slow
+	 */
+	private static void submit(Executor executor, IWebSocketConnection wc, Runnable r) {
+		WsFanout.submitDroppable(connKey(wc), () -> executor.run(r));
+	}
+
 	public static boolean send(IClusterWsMessage msg) {
 		if (msg instanceof WsMessageRoomMsg) {
 			sendRoom(((WsMessageRoomMsg)msg).getMsg(), false);
@@ -162,12 +174,20 @@ public class WebSocketHelper {
 		sendUser(userId, m, null, true);
 	}
 
-	static void sendUser(final Long userId, final JSONObject m, BiFunction<JSONObject, Client, JSONObject> func, boolean publish) {
+	static void sendUser(final Long userId, final JSONObject m, Function<Client, String> render, boolean publish) {
 		if (publish) {
 			publish(new WsMessageUser(userId, m));
 		}
-		send(a -> ((IApplication)a).getBean(IClientManager.class).listByUser(userId)
-				, (t, c) -> doSend(t, c, m, func, "user"), null);
+		final BiConsumer<IWebSocketConnection, Client> consumer;
+		if (render == null) {
+			final String msg = m.toString(new NullStringer());
+			consumer = (t, c) -> doSend(t, msg, "user");
+		} else {
+			consumer = (t, c) -> doSend(t, render.apply(c), "user");
+		}
+		send("u-" + userId
+				, a -> ((IApplication)a).getBean(IClientManager.class).listByUser(userId)
+				, consumer, null);
 	}
 
 	public static void sendAll(final String m) {
@@ -183,7 +203,7 @@ public class WebSocketHelper {
 	}
 
 	private static void sendAll(Consumer<IWebSocketConnection> sender) {
-		new Thread(() -> {
+		WsFanout.execute(() -> {
 			Application app = (Application)getApp();
 			if (app == null) {
 				return; // Application is not ready
@@ -192,26 +212,43 @@ public class WebSocketHelper {
 			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
 			Executor executor = settings.getWebSocketPushMessageExecutor();
 			for (IWebSocketConnection c : reg.getConnections(app)) {
-				executor.run(() -> sender.accept(c));
+				submit(executor, c, () -> sender.accept(c));
 			}
-		}).start();
+		});
 	}
 
 	protected static void publish(IClusterWsMessage m) {
 		IApplication app = getApp();
-		new Thread(() -> app.publishWsTopic(m)).start();
+		WsFanout.execute(() -> app.publishWsTopic(m));
 	}
 
-	protected static void sendRoom(final Long roomId, final JSONObject m, Predicate<Client> check, BiFunction<JSONObject, Client, JSONObject> func) {
+	/**
+	 * @param render - renders client specific text of the message, message is sent as is if {@code null}
+	 */
+	protected static void sendRoom(final Long roomId, final JSONObject m, Predicate<Client> check, Function<Client, String> render) {
 		log.trace("Sending json WebSocket message to room: {}", m);
-		sendRoom(roomId, (t, c) -> doSend(t, c, m, func, "room"), check);
+		if (render == null) {
+			sendRoom(roomId, m.toString(new NullStringer()), check);
+		} else {
+			sendRoom(roomId, (t, c) -> doSend(t, render.apply(c), "room"), check);
+		}
+	}
+
+	/**
+	 * Message is rendered once and the same text is being sent to all clients in the room
+	 */
+	protected static void sendRoom(final Long roomId, final String msg, Predicate<Client> check) {
+		sendRoom(roomId, (t, c) -> doSend(t, msg, "room"), check);
 	}
 
-	static void doSend(IWebSocketConnection conn, Client c, JSONObject msg, BiFunction<JSONObject, Client, JSONObject> func, String suffix) {
-		doSend(conn, (func == null ? msg : func.apply(msg, c)).toString(new NullStringer()), suffix);
+	/**
+	 * Message is rendered once, only client specific part is being substituted for every client in the room
+	 */
+	protected static void sendRoom(final Long roomId, final MessageTemplate tpl, Predicate<Client> check) {
+		sendRoom(roomId, (t, c) -> doSend(t, tpl.render(c.getUid()), "room"), check);
 	}
 
-	private static void doSend(IWebSocketConnection c, String msg, String suffix) {
+	static void doSend(IWebSocketConnection c, String msg, String suffix) {
 		try {
 			c.sendMessage(msg);
 		} catch (IOException e) {
@@ -220,7 +257,7 @@ public class WebSocketHelper {
 	}
 
 	private static void sendRoom(final Long roomId, BiConsumer<IWebSocketConnection, Client> consumer, Predicate<Client> check) {
-		send(a -> ((IApplication)a).getBean(IClientManager.class).listByRoom(roomId), consumer, check);
+		send("r-" + roomId, a -> ((IApplication)a).getBean(IClientManager.class).listByRoom(roomId), consumer, check);
 	}
 
 	static void send(
@@ -228,7 +265,21 @@ public class WebSocketHelper {
 			, BiConsumer<IWebSocketConnection, Client> consumer
 			, Predicate<Client> check)
 	{
-		new Thread(() -> {
+		send(null, func, consumer, check);
+	}
+
+	/**
+	 * Messages with the same key (room, user etc.) are being delivered in order
+	 *
+	 * @param key - ordering key, messages are delivered without ordering if {@code null}
+	 */
+	static void send(
+			final String key
+			, final Function<Application, Collection<Client>> func
+			, BiConsumer<IWebSocketConnection, Client> consumer
+			, Predicate<Client> check)
+	{
+		Runnable r = () -> {
 			Application app = (Application)getApp();
 			if (app == null) {
 				return; // Application is not ready
@@ -240,10 +291,15 @@ public class WebSocketHelper {
 				if (check == null || check.test(c)) {
 					final IWebSocketConnection wc = reg.getConnection(app, c.getSessionId(), new PageIdKey(c.getPageId()));
 					if (wc != null && wc.isOpen()) {
-						executor.run(() -> consumer.accept(wc, c));
+						submit(executor, wc, () -> consumer.accept(wc, c));
 					}
 				}
 			}
-		}).start();
+		};
+		if (key == null) {
+			WsFanout.execute(r);
+		} else {
+			WsFanout.submit(key, r);
+		}
 	}
 }
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util.ws;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded executor used to fan WebSocket messages out to connected clients
+ *
+ * Tasks are submitted with a key (room, user, connection), tasks sharing the same key
+ * are executed strictly in submission order, tasks with different keys are executed in parallel.
+ * Each key holds at most {@link #KEY_QUEUE_LIMIT} pending tasks. For droppable (per-connection)
+ * keys the oldest task is dropped in case the consumer (i.e. slow connection) can't keep up,
+ * other tasks are never dropped: the caller waits for the free space for a while and then
+ * the task is queued anyway. In case the pool itself is saturated the task is executed
+ * by the calling thread (back-pressure).
+ */
+public class WsFanout {
+	private static final Logger log = LoggerFactory.getLogger(WsFanout.class);
+	public static final int KEY_QUEUE_LIMIT = 500;
+	private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+	private static final int POOL_QUEUE_CAPACITY = 5000;
+	private static final int DRAIN_BATCH = 64;
+	private static final long FULL_WAIT = TimeUnit.MILLISECONDS.toNanos(500);
+	private static final long FULL_WAIT_STEP = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final ThreadLocal<Boolean> IN_POOL = ThreadLocal.withInitial(() -> false);
+	private static final Map<String, KeyQueue> queues = new ConcurrentHashMap<>();
+	private static final LongAdder pending = new LongAdder();
+	private static final LongAdder processed = new LongAdder();
+	private static final LongAdder dropped = new LongAdder();
+	private static final LongAdder rejected = new LongAdder();
+	private static final LongAdder blocked = new LongAdder();
+	private static final LongAdder latencyTotal = new LongAdder();
+	private static final AtomicLong latencyMax = new AtomicLong();
+	private static volatile ThreadPoolExecutor pool = createPool();
+
+	private WsFanout() {}
+
+	private static class KeyQueue {
+		private final Deque<Task> tasks = new ArrayDeque<>();
+		private boolean running;
+	}
+
+	private static class Task {
+		private final Runnable r;
+		private final long created = System.nanoTime();
+
+		Task(Runnable r) {
+			this.r = r;
+		}
+	}
+
+	private static ThreadPoolExecutor createPool() {
+		final AtomicInteger idx = new AtomicInteger();
+		ThreadFactory tf = r -> {
+			Thread t = new Thread(() -> {
+				IN_POOL.set(true);
+				r.run();
+			}, "ws-fanout-" + idx.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		ThreadPoolExecutor p = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS
+				, new ArrayBlockingQueue<>(POOL_QUEUE_CAPACITY), tf, (r, e) -> {
+					rejected.increment();
+					if (!e.isShutdown()) {
+						r.run(); // back-pressure: caller does the job
+					}
+				});
+		p.allowCoreThreadTimeOut(true);
+		return p;
+	}
+
+	/**
+	 * Submit task for execution, tasks with the same key are executed in order,
+	 * the task is never dropped
+	 *
+	 * @param key - ordering key, i.e. room or user
+	 * @param r - task to be executed
+	 */
+	public static void submit(final String key, final Runnable r) {
+		submit(key, r, false);
+	}
+
+	/**
+	 * Submit task for execution, tasks with the same key are executed in order,
+	 * the oldest task of the key is dropped in case the queue of the key is full
+	 *
+	 * @param key - ordering key, i.e. connection
+	 * @param r - task to be executed
+	 */
+	public static void submitDroppable(final String key, final Runnable r) {
+		submit(key, r, true);
+	}
+
+	/**
+	 * Execute task without any ordering, the task is never dropped
+	 *
+	 * @param r - task to be executed
+	 */
+	public static void execute(final Runnable r) {
+		final Task t = new Task(r);
+		pending.increment();
+		pool.execute(() -> {
+			pending.decrement();
+			run(t);
+		});
+	}
+
+	private static void submit(final String key, final Runnable r, final boolean droppable) {
+		final Task t = new Task(r);
+		// pool threads should never wait for the pool
+		final boolean noWait = droppable || IN_POOL.get();
+		final long deadline = System.nanoTime() + FULL_WAIT;
+		boolean waited = false;
+		while (true) {
+			final boolean force = noWait || System.nanoTime() - deadline > 0;
+			// 0 - queue is full, 1 - task is queued, 2 - task is queued and queue should be drained
+			final int[] state = {0};
+			final KeyQueue q = queues.compute(key, (k, kq) -> {
+				KeyQueue res = kq == null ? new KeyQueue() : kq;
+				if (res.tasks.size() >= KEY_QUEUE_LIMIT) {
+					if (!force) {
+						return res;
+					}
+					if (droppable) {
+						res.tasks.pollFirst();
+						pending.decrement();
+						dropped.increment();
+						log.debug("Fan-out queue for {} is full, oldest message is dropped", k);
+					}
+				}
+				res.tasks.addLast(t);
+				pending.increment();
+				state[0] = 1;
+				if (!res.running) {
+					res.running = true;
+					state[0] = 2;
+				}
+				return res;
+			});
+			if (state[0] == 2) {
+				pool.execute(() -> drain(key, q));
+			}
+			if (state[0] != 0) {
+				return;
+			}
+			if (!waited) {
+				waited = true;
+				blocked.increment();
+			}
+			LockSupport.parkNanos(FULL_WAIT_STEP);
+		}
+	}
+
+	private static void drain(final String key, final KeyQueue q) {
+		for (int i = 0; i < DRAIN_BATCH; ++i) {
+			Task t = poll(key, q);
+			if (t == null) {
+				return;
+			}
+			run(t);
+		}
+		// batch is processed, let other keys to proceed
+		if (poll(key, q, false) != null) {
+			pool.execute(() -> drain(key, q));
+		}
+	}
+
+	private static Task poll(final String key, final KeyQueue q) {
+		return poll(key, q, true);
+	}
+
+	/**
+	 * Takes next task of the key, queue is removed (and marked as stopped) if empty
+	 *
+	 * @param remove - if {@code true} the task will be taken from the queue, peeked otherwise
+	 */
+	private static Task poll(final String key, final KeyQueue q, boolean remove) {
+		final Task[] res = {null};
+		queues.computeIfPresent(key, (k, kq) -> {
+			if (kq != q) {
+				return kq;
+			}
+			res[0] = remove ? kq.tasks.pollFirst() : kq.tasks.peekFirst();
+			if (res[0] == null) {
+				kq.running = false;
+				return null;
+			}
+			if (remove) {
+				pending.decrement();
+			}
+			return kq;
+		});
+		return res[0];
+	}
+
+	private static void run(Task t) {
+		try {
+			t.r.run();
+		} catch (Exception e) {
+			log.error("Unexpected error while sending WebSocket message", e);
+		} finally {
+			long lat = System.nanoTime() - t.created;
+			processed.increment();
+			latencyTotal.add(lat);
+			latencyMax.accumulateAndGet(lat, Math::max);
+		}
+	}
+
+	/**
+	 * @return number of tasks waiting for execution
+	 */
+	public static long getQueueDepth() {
+		return pending.sum();
+	}
+
+	/**
+	 * @return number of keys having pending tasks
+	 */
+	public static int getActiveKeys() {
+		return queues.size();
+	}
+
+	/**
+	 * @return number of tasks executed
+	 */
+	public static long getProcessed() {
+		return processed.sum();
+	}
+
+	/**
+	 * @return number of tasks dropped due to per-key queue was full
+	 */
+	public static long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return number of tasks rejected by saturated pool (executed by caller)
+	 */
+	public static long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * @return number of tasks which had to wait due to queue of the key was full
+	 */
+	public static long getBlocked() {
+		return blocked.sum();
+	}
+
+	/**
+	 * @return average time (in milliseconds) between task submission and completion
+	 */
+	public static double getAvgLatency() {
+		long count = processed.sum();
+		return count == 0 ? 0 : latencyTotal.sum() / (count * 1_000_000.);
+	}
+
+	/**
+	 * @return max time (in milliseconds) between task submission and completion
+	 */
+	public static double getMaxLatency() {
+		return latencyMax.get() / 1_000_000.;
+	}
+
+	public static String getStats() {
+		return String.format("WsFanout [queue: %s, keys: %s, processed: %s, dropped: %s, blocked: %s, rejected: %s, avg latency: %.2fms, max latency: %.2fms]"
+				, getQueueDepth(), getActiveKeys(), getProcessed(), getDropped(), getBlocked(), getRejected(), getAvgLatency(), getMaxLatency());
+	}
+
+	public static synchronized void shutdown() {
+		log.debug("Shutting down, {}", getStats());
+		pool.shutdown();
+		try {
+			if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+				pool.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		queues.clear();
+		pending.reset();
+		pool = createPool();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import static org.apache.openmeetings.core.util.MessageTemplate.PLACEHOLDER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONObject;
+
+public class TestMessageTemplate {
+	@Test
+	public void testNoPlaceholder() {
+		JSONObject o = new JSONObject().put("type", "wb");
+		assertEquals(o.toString(), new MessageTemplate(o).render("uid"), "Message should not be changed");
+	}
+
+	@Test
+	public void testRender() {
+		JSONObject o = new JSONObject()
+				.put("_src", "./room/file/1?ruid=r&uid=" + PLACEHOLDER)
+				.put("_poster", "./room/preview/1?ruid=r&uid=" + PLACEHOLDER);
+		JSONObject res = new JSONObject(new MessageTemplate(o).render("abc"));
+		assertEquals("./room/file/1?ruid=r&uid=abc", res.getString("_src"), "Uid should be substituted");
+		assertEquals("./room/preview/1?ruid=r&uid=abc", res.getString("_poster"), "Uid should be substituted");
+	}
+}
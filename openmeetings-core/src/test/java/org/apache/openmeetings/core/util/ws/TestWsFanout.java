@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util.ws;
+
+import static org.apache.openmeetings.core.util.ws.WsFanout.KEY_QUEUE_LIMIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TestWsFanout {
+	@Test
+	public void testOrder() throws InterruptedException {
+		final int count = 300;
+		final List<Integer> res = new CopyOnWriteArrayList<>();
+		final CountDownLatch done = new CountDownLatch(count);
+		for (int i = 0; i < count; ++i) {
+			final int idx = i;
+			WsFanout.submit("order", () -> {
+				res.add(idx);
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS), "All tasks should be processed");
+		for (int i = 0; i < count; ++i) {
+			assertEquals(i, res.get(i).intValue(), "Order should be preserved");
+		}
+	}
+
+	@Test
+	public void testDropOldest() throws InterruptedException {
+		final int extra = 10;
+		final long dropped = WsFanout.getDropped();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final List<Integer> res = new CopyOnWriteArrayList<>();
+		WsFanout.submitDroppable("slow", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS), "Slow task should be started");
+		final int total = KEY_QUEUE_LIMIT + extra;
+		for (int i = 0; i < total; ++i) {
+			final int idx = i;
+			WsFanout.submitDroppable("slow", () -> {
+				res.add(idx);
+				if (idx == total - 1) {
+					done.countDown();
+				}
+			});
+		}
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS), "All tasks should be processed");
+		assertEquals(extra, WsFanout.getDropped() - dropped, "Oldest tasks should be dropped");
+		assertEquals(KEY_QUEUE_LIMIT, res.size(), "Only limited number of tasks should be processed");
+		assertEquals(extra, res.get(0).intValue(), "Oldest tasks should be dropped");
+	}
+
+	@Test
+	public void testNoDrop() throws InterruptedException {
+		final int extra = 10;
+		final long dropped = WsFanout.getDropped();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Integer> res = new CopyOnWriteArrayList<>();
+		WsFanout.submit("room", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS), "Slow task should be started");
+		final int total = KEY_QUEUE_LIMIT + extra;
+		final CountDownLatch done = new CountDownLatch(total);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < total; ++i) {
+				final int idx = i;
+				WsFanout.submit("room", () -> {
+					res.add(idx);
+					done.countDown();
+				});
+			}
+		});
+		producer.start();
+		Thread.sleep(200);
+		release.countDown();
+		assertTrue(done.await(20, TimeUnit.SECONDS), "All tasks should be processed");
+		producer.join();
+		assertEquals(dropped, WsFanout.getDropped(), "Tasks should not be dropped");
+		for (int i = 0; i < total; ++i) {
+			assertEquals(i, res.get(i).intValue(), "Order should be preserved");
+		}
+	}
+
+	@Test
+	public void testExecute() throws InterruptedException {
+		final int count = 100;
+		final CountDownLatch done = new CountDownLatch(count);
+		for (int i = 0; i < count; ++i) {
+			WsFanout.execute(done::countDown);
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS), "All tasks should be processed");
+	}
+}
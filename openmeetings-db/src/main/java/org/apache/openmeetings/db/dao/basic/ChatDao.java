@@ -18,24 +18,94 @@
  */
 package org.apache.openmeetings.db.dao.basic;
 
+import static java.util.UUID.randomUUID;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
 
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.LocalCache;
+import org.apache.openmeetings.util.ws.IClusterWsMessage;
+import org.apache.wicket.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Chat messages store
+ *
+ * Room messages not requiring moderation are persisted by batches (write-behind),
+ * last {@link #HISTORY_SIZE} messages of each active room are kept in memory, so
+ * room history is being served without DB round-trip. New messages are published
+ * to other cluster members, so every node keeps its room history up to date.
+ *
+ * Every new message gets {@code uid}, buffered messages are identified by it until
+ * they are persisted. Messages not yet persisted by other cluster members are
+ * tracked, so room history loaded from the DB is complete.
+ *
+ * History is rendered from its compact form, senders are resolved via local cache
+ * (changes of user name and picture are visible in history after {@link #SENDER_TTL}).
+ */
 @Repository
 @Transactional
 public class ChatDao {
+	private static final Logger log = LoggerFactory.getLogger(ChatDao.class);
+	public static final int HISTORY_SIZE = 30;
+	private static final int HISTORY_ROOMS = 1000;
+	private static final int FLUSH_BATCH = 100;
+	private static final int MAX_PENDING = 10000;
+	private static final long UNFLUSHED_TTL = TimeUnit.MINUTES.toMillis(10);
+	private static final long SENDER_TTL = TimeUnit.MINUTES.toMillis(5);
+	private static final int MAX_ATTEMPTS = 3;
+	private static final RoomHistory history = new RoomHistory();
+	private static final LocalCache<Long, User> senders = new LocalCache<>("chat-senders", HISTORY_ROOMS, SENDER_TTL);
+	private final Queue<ChatMessage> pending = new ConcurrentLinkedQueue<>();
+	// failed attempts to persist buffered message, guarded by flushLock
+	private final Map<String, Integer> attempts = new HashMap<>();
+	private final Object flushLock = new Object();
+	private final LongAdder buffered = new LongAdder();
+	private final LongAdder flushed = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired
+	private PlatformTransactionManager txManager;
 
 	public ChatMessage get(long id) {
 		return em.createNamedQuery("getChatMessageById", ChatMessage.class)
@@ -45,16 +115,62 @@ public class ChatDao {
 
 	//for export
 	public List<ChatMessage> get(long start, long count) {
+		flush();
 		return setLimits(em.createNamedQuery("getChatMessages", ChatMessage.class)
 				, start, count).getResultList();
 	}
 
+	public List<ChatMessage> getAfter(long id, int count) {
+		flush();
+		return em.createNamedQuery("getChatMessagesAfter", ChatMessage.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	public List<ChatMessage> getGlobal(long start, long count) {
 		return setLimits(em.createNamedQuery("getGlobalChatMessages", ChatMessage.class)
 				, start, count).getResultList();
 	}
 
 	public List<ChatMessage> getRoom(long roomId, long start, long count, boolean all) {
+		if (start == 0 && count <= HISTORY_SIZE) {
+			List<HistoryItem> list = history.get(roomId);
+			if (list == null) {
+				misses.increment();
+				history.startLoad(roomId);
+				try {
+					flush();
+					list = history.load(roomId, load(roomId, 0, HISTORY_SIZE, true).stream()
+							.map(HistoryItem::new)
+							.collect(Collectors.toList()));
+				} catch (RuntimeException e) {
+					history.cancelLoad(roomId);
+					throw e;
+				}
+			} else {
+				hits.increment();
+			}
+			List<ChatMessage> res = new ArrayList<>();
+			for (HistoryItem m : list) {
+				if (res.size() == count) {
+					break;
+				}
+				if (all || !m.needModeration) {
+					res.add(m.toMessage(this::getSender));
+				}
+			}
+			return res;
+		}
+		flush();
+		return load(roomId, start, count, all);
+	}
+
+	private User getSender(Long id) {
+		return senders.get(id, userId -> em.find(User.class, userId));
+	}
+
+	private List<ChatMessage> load(long roomId, long start, long count, boolean all) {
 		return setLimits(em.createNamedQuery("getChatMessagesByRoom", ChatMessage.class)
 					.setParameter("roomId", roomId)
 					.setParameter("all", all)
@@ -82,18 +198,147 @@ public class ChatDao {
 			.executeUpdate();
 	}
 
+	/**
+	 * Stores the message, room messages not requiring moderation are persisted
+	 * asynchronously and have no ID (only {@code uid}) until {@link #flush()}
+	 *
+	 * @param entity - message to store
+	 * @return stored message
+	 */
 	public ChatMessage update(ChatMessage entity) {
+		if (entity.getId() == null && entity.getToRoom() != null && entity.getToUser() == null && !entity.isNeedModeration()
+				&& pending.size() < MAX_PENDING)
+		{
+			entity.setSent(new Date());
+			entity.setUid(randomUUID().toString());
+			pending.add(entity);
+			buffered.increment();
+			addHistory(entity);
+			return entity;
+		}
 		return update(entity, null);
 	}
 
 	public ChatMessage update(ChatMessage entity, Date sent) {
 		entity.setSent(sent == null ? new Date() : sent);
 		if (entity.getId() == null) {
+			if (entity.getUid() == null) {
+				entity.setUid(randomUUID().toString());
+			}
 			em.persist(entity);
 		}
+		if (entity.getToRoom() != null && entity.getToUser() == null) {
+			// history is updated with committed message having ID
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						addHistory(entity);
+					}
+				});
+			} else {
+				addHistory(entity);
+			}
+		}
 		return entity;
 	}
 
+	private static void addHistory(ChatMessage m) {
+		HistoryItem item = new HistoryItem(m);
+		history.add(item);
+		publish(new HistoryMessage(HistoryMessage.Type.ADD, item.roomId, List.of(item)));
+	}
+
+	private static void clearHistory(Long roomId) {
+		history.clear(roomId);
+		publish(new HistoryMessage(HistoryMessage.Type.CLEAR, roomId, null));
+	}
+
+	private static void publish(HistoryMessage msg) {
+		IApplication app = (IApplication)Application.get(getWicketApplicationName());
+		if (app != null) {
+			app.publishWsTopic(msg);
+		}
+	}
+
+	/**
+	 * Persists buffered messages, is being called periodically and before
+	 * any DB operation depending on the buffered messages
+	 *
+	 * Messages are removed from the queue only after they are committed, in case
+	 * batch fails each of its messages is persisted in separate transaction,
+	 * failed messages are kept in the queue till the next flush, message failed
+	 * {@link #MAX_ATTEMPTS} times is dropped
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			while (!pending.isEmpty()) {
+				List<ChatMessage> batch = new ArrayList<>(FLUSH_BATCH);
+				for (Iterator<ChatMessage> it = pending.iterator(); it.hasNext() && batch.size() < FLUSH_BATCH;) {
+					batch.add(it.next());
+				}
+				if (persist(batch)) {
+					continue;
+				}
+				boolean failed = false;
+				for (ChatMessage m : batch) {
+					if (persist(List.of(m))) {
+						attempts.remove(m.getUid());
+					} else if (attempts.merge(m.getUid(), 1, Integer::sum) < MAX_ATTEMPTS) {
+						failed = true;
+					} else {
+						attempts.remove(m.getUid());
+						pending.remove(m);
+						dropped.increment();
+						log.error("Chat message can't be persisted and is dropped: {}", m);
+					}
+				}
+				if (failed) {
+					break;
+				}
+			}
+		}
+	}
+
+	private boolean persist(List<ChatMessage> batch) {
+		TransactionTemplate tt = new TransactionTemplate(txManager);
+		// should not depend on the transaction of the caller
+		tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			tt.executeWithoutResult(status -> {
+				for (ChatMessage m : batch) {
+					em.persist(m);
+				}
+			});
+		} catch (RuntimeException e) {
+			for (ChatMessage m : batch) {
+				m.setId(null);
+			}
+			failures.increment();
+			log.error("Unexpected error while persisting {} chat messages, will retry", batch.size(), e);
+			return false;
+		}
+		List<HistoryItem> items = new ArrayList<>(batch.size());
+		for (ChatMessage m : batch) {
+			pending.remove(m);
+			attempts.remove(m.getUid());
+			items.add(new HistoryItem(m));
+		}
+		flushed.add(batch.size());
+		history.flushed(items);
+		publish(new HistoryMessage(HistoryMessage.Type.FLUSHED, null, items));
+		log.trace("{} chat messages are persisted", batch.size());
+		return true;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		flush();
+		if (!pending.isEmpty()) {
+			log.error("{} chat messages were not persisted", pending.size());
+		}
+	}
+
 	/**
 	 * @param entity - unused
 	 * @param userId - unused
@@ -107,10 +352,298 @@ public class ChatDao {
 	}
 
 	public void deleteRoom(Long roomId) {
+		flush();
 		em.createNamedQuery("deleteChatRoom").setParameter("roomId", roomId).executeUpdate();
+		clearHistory(roomId);
 	}
 
 	public void deleteUser(Long userId) {
 		em.createNamedQuery("deleteChatUser").setParameter(PARAM_USER_ID, userId).executeUpdate();
 	}
+
+	public void purgeName(Long userId, String purged) {
+		flush();
+		em.createNamedQuery("purgeChatUserName")
+			.setParameter("purged", purged)
+			.setParameter(PARAM_USER_ID, userId)
+			.executeUpdate();
+		clearHistory(null);
+	}
+
+	/**
+	 * @return number of messages waiting to be persisted
+	 */
+	public int getPending() {
+		return pending.size();
+	}
+
+	public String getStats() {
+		return String.format("ChatDao [pending: %s, buffered: %s, flushed: %s, failures: %s, dropped: %s, rooms: %s, history hits: %s, history misses: %s]"
+				, getPending(), buffered.sum(), flushed.sum(), failures.sum(), dropped.sum(), history.size(), hits.sum(), misses.sum());
+	}
+
+	/**
+	 * Process room history update received from other cluster member
+	 *
+	 * @param msg - cluster message
+	 * @return {@code true} if message was processed
+	 */
+	public static boolean onMessage(IClusterWsMessage msg) {
+		if (!(msg instanceof HistoryMessage)) {
+			return false;
+		}
+		HistoryMessage m = (HistoryMessage)msg;
+		switch (m.type) {
+			case ADD:
+				m.items.forEach(history::add);
+				break;
+			case FLUSHED:
+				history.flushed(m.items);
+				break;
+			case CLEAR:
+			default:
+				history.clear(m.roomId);
+				break;
+		}
+		return true;
+	}
+
+	private static class HistoryMessage implements IClusterWsMessage {
+		private static final long serialVersionUID = 1L;
+		private enum Type {
+			ADD
+			, FLUSHED
+			, CLEAR
+		}
+		private final Type type;
+		private final Long roomId;
+		private final List<HistoryItem> items;
+
+		HistoryMessage(Type type, Long roomId, List<HistoryItem> items) {
+			this.type = type;
+			this.roomId = roomId;
+			this.items = items;
+		}
+	}
+
+	/**
+	 * Compact form of room message being kept in history and sent to other cluster members
+	 */
+	private static class HistoryItem implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final Long id;
+		private final String uid;
+		private final long roomId;
+		private final Long fromUserId;
+		private final String fromName;
+		private final String message;
+		private final long sent;
+		private final boolean needModeration;
+		private final ChatMessage.Status status;
+
+		HistoryItem(ChatMessage m) {
+			id = m.getId();
+			uid = m.getUid();
+			roomId = m.getToRoom().getId();
+			fromUserId = m.getFromUser() == null ? null : m.getFromUser().getId();
+			fromName = m.getFromName();
+			message = m.getMessage();
+			sent = m.getSent().getTime();
+			needModeration = m.isNeedModeration();
+			status = m.getStatus();
+		}
+
+		String key() {
+			return uid == null ? String.valueOf(id) : uid;
+		}
+
+		ChatMessage toMessage(Function<Long, User> sender) {
+			ChatMessage m = new ChatMessage();
+			m.setId(id);
+			m.setUid(uid);
+			Room r = new Room(); // only id is required to render the message
+			r.setId(roomId);
+			m.setToRoom(r);
+			m.setFromUser(fromUserId == null ? null : sender.apply(fromUserId));
+			m.setFromName(fromName);
+			m.setMessage(message);
+			m.setSent(new Date(sent));
+			m.setNeedModeration(needModeration);
+			m.setStatus(status);
+			return m;
+		}
+
+		/**
+		 * persisted message is preferred
+		 */
+		static HistoryItem choose(HistoryItem o, HistoryItem n) {
+			return n.id == null && o.id != null ? o : n;
+		}
+	}
+
+	private static class Loading {
+		private int loaders;
+		private final List<HistoryItem> items = new ArrayList<>();
+	}
+
+	/**
+	 * Last messages of recently active rooms, newest first
+	 */
+	private static class RoomHistory {
+		private static final Comparator<HistoryItem> NEWEST_FIRST = Comparator.comparingLong((HistoryItem m) -> m.sent).reversed();
+		private final Map<Long, Deque<HistoryItem>> rooms = new LinkedHashMap<>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Deque<HistoryItem>> eldest) {
+				return size() > HISTORY_ROOMS;
+			}
+		};
+		// messages added to the rooms being loaded
+		private final Map<Long, Loading> loading = new HashMap<>();
+		// messages not yet persisted by the node they were sent to, in order of addition
+		private final Map<String, HistoryItem> unflushed = new LinkedHashMap<>();
+
+		synchronized List<HistoryItem> get(long roomId) {
+			Deque<HistoryItem> q = rooms.get(roomId);
+			return q == null ? null : new ArrayList<>(q);
+		}
+
+		/**
+		 * Should be called before history is read from the DB, messages added
+		 * since this moment are merged into loaded history
+		 */
+		synchronized void startLoad(long roomId) {
+			loading.computeIfAbsent(roomId, id -> new Loading()).loaders++;
+		}
+
+		synchronized void cancelLoad(long roomId) {
+			release(roomId);
+		}
+
+		synchronized List<HistoryItem> load(long roomId, List<HistoryItem> list) {
+			Loading l = release(roomId);
+			Deque<HistoryItem> q = rooms.get(roomId);
+			if (q == null) {
+				Map<String, HistoryItem> merged = new HashMap<>();
+				for (HistoryItem m : list) {
+					merged.merge(m.key(), m, HistoryItem::choose);
+				}
+				if (l != null) {
+					for (HistoryItem m : l.items) {
+						merged.merge(m.key(), m, HistoryItem::choose);
+					}
+				}
+				for (HistoryItem m : unflushed.values()) {
+					if (m.roomId == roomId) {
+						merged.merge(m.key(), m, HistoryItem::choose);
+					}
+				}
+				q = merged.values().stream()
+						.sorted(NEWEST_FIRST)
+						.limit(HISTORY_SIZE)
+						.collect(Collectors.toCollection(ArrayDeque::new));
+				rooms.put(roomId, q);
+			}
+			return new ArrayList<>(q);
+		}
+
+		private Loading release(long roomId) {
+			Loading l = loading.get(roomId);
+			if (l != null && --l.loaders < 1) {
+				loading.remove(roomId);
+			}
+			return l;
+		}
+
+		/**
+		 * Message is added to the room history if it is loaded (or being loaded),
+		 * message with the same key is replaced
+		 */
+		synchronized void add(HistoryItem m) {
+			if (m.id == null) {
+				unflushed.put(m.uid, m);
+				expire();
+			}
+			Loading l = loading.get(m.roomId);
+			if (l != null) {
+				l.items.add(m);
+			}
+			Deque<HistoryItem> q = rooms.get(m.roomId);
+			if (q == null) {
+				return;
+			}
+			HistoryItem prev = remove(q, m.key());
+			m = prev == null ? m : HistoryItem.choose(prev, m);
+			if (q.isEmpty() || q.peekFirst().sent <= m.sent) {
+				q.addFirst(m);
+			} else {
+				List<HistoryItem> list = new ArrayList<>(q);
+				list.add(m);
+				list.sort(NEWEST_FIRST);
+				q.clear();
+				q.addAll(list);
+			}
+			while (q.size() > HISTORY_SIZE) {
+				q.removeLast();
+			}
+		}
+
+		/**
+		 * Buffered messages are persisted, ID is assigned
+		 */
+		synchronized void flushed(List<HistoryItem> items) {
+			for (HistoryItem m : items) {
+				unflushed.remove(m.uid);
+				Loading l = loading.get(m.roomId);
+				if (l != null) {
+					l.items.add(m);
+				}
+				Deque<HistoryItem> q = rooms.get(m.roomId);
+				if (q != null) {
+					List<HistoryItem> list = new ArrayList<>(q);
+					list.replaceAll(o -> m.key().equals(o.key()) ? m : o);
+					q.clear();
+					q.addAll(list);
+				}
+			}
+		}
+
+		private static HistoryItem remove(Deque<HistoryItem> q, String key) {
+			for (Iterator<HistoryItem> it = q.iterator(); it.hasNext();) {
+				HistoryItem o = it.next();
+				if (key.equals(o.key())) {
+					it.remove();
+					return o;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Messages of crashed nodes will never be reported as flushed
+		 */
+		private void expire() {
+			long min = System.currentTimeMillis() - UNFLUSHED_TTL;
+			for (Iterator<HistoryItem> it = unflushed.values().iterator(); it.hasNext();) {
+				if (it.next().sent > min) {
+					break;
+				}
+				it.remove();
+			}
+		}
+
+		synchronized void clear(Long roomId) {
+			if (roomId == null) {
+				rooms.clear();
+			} else {
+				rooms.remove(roomId);
+				unflushed.values().removeIf(m -> m.roomId == roomId);
+			}
+		}
+
+		synchronized int size() {
+			return rooms.size();
+		}
+	}
 }
@@ -20,6 +20,7 @@ package org.apache.openmeetings.db.dao.basic;
 
 import static org.apache.commons.lang3.math.NumberUtils.toInt;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPLICATION_BASE_URL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPLICATION_NAME;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_AUTO_OPEN_SHARING;
@@ -68,6 +69,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.HEADER_XFRAME_S
 import static org.apache.openmeetings.util.OpenmeetingsVariables.USER_LOGIN_MINIMUM_LENGTH;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.USER_PASSWORD_MINIMUM_LENGTH;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getRoomSettings;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.setAllowRegisterFrontend;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.setAllowRegisterOauth;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.setAllowRegisterSoap;
@@ -102,8 +104,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.setxFrameOption
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 
@@ -116,16 +120,21 @@ import org.apache.openjpa.event.RemoteCommitProvider;
 import org.apache.openjpa.event.TCPRemoteCommitProvider;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
 import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.db.dao.IDataProviderDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.Configuration;
 import org.apache.openmeetings.db.util.DaoHelper;
 import org.apache.openmeetings.util.crypt.CryptProvider;
+import org.apache.openmeetings.util.ws.IClusterWsMessage;
+import org.apache.wicket.Application;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.github.openjson.JSONObject;
 
@@ -140,6 +149,9 @@ import com.github.openjson.JSONObject;
  *
  * <b> {@link #get(String)} is deprecated!</b>
  *
+ * Values are served from in-memory snapshot of all configurations, the snapshot
+ * is being re-loaded on every node after configuration is changed
+ *
  * @author swagner
  *
  */
@@ -154,6 +166,9 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 
 	@Autowired
 	private UserDao userDao;
+	private final Object snapshotLock = new Object();
+	private volatile Map<String, String> snapshot;
+	private long generation; // incremented on every invalidation, guarded by snapshotLock
 
 	public void updateClusterAddresses(String addresses) throws UnknownHostException {
 		OpenJPAConfiguration cfg = ((OpenJPAEntityManagerSPI)OpenJPAPersistence.cast(em)).getConfiguration();
@@ -205,39 +220,56 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		return list.get(0);
 	}
 
-	public boolean getBool(String key, boolean def) {
-		Configuration c = get(key);
-
-		if (c != null) {
-			try {
-				return c.getValueB();
-			} catch (Exception e) {
-				//no-op, parsing exception
+	/**
+	 * Loaded snapshot is installed only in case there was no invalidation during the load,
+	 * otherwise values read before the change might be served
+	 */
+	private Map<String, String> getSnapshot() {
+		Map<String, String> s = snapshot;
+		if (s == null) {
+			final long gen;
+			synchronized (snapshotLock) {
+				gen = generation;
+			}
+			s = new HashMap<>();
+			for (Object[] row : em.createNamedQuery("getConfigurationValues", Object[].class).getResultList()) {
+				s.put((String)row[0], (String)row[1]);
+			}
+			synchronized (snapshotLock) {
+				if (gen == generation) {
+					snapshot = s;
+				}
 			}
 		}
-		return def;
+		return s;
 	}
 
-	public Long getLong(String key, Long def) {
-		Configuration c = get(key);
+	private void invalidate() {
+		synchronized (snapshotLock) {
+			generation++;
+			snapshot = null;
+		}
+	}
 
-		if (c != null) {
-			try {
-				return c.getValueN();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
+	private boolean exists(Map<String, String> s, String key) {
+		if (s.containsKey(key)) {
+			return true;
 		}
-		return def;
+		log.warn("Could not find key in configurations: {}", key);
+		return false;
 	}
 
-	public int getInt(String key, int def) {
-		Configuration c = get(key);
+	public boolean getBool(String key, boolean def) {
+		Map<String, String> s = getSnapshot();
+		return exists(s, key) ? Boolean.parseBoolean(s.get(key)) : def;
+	}
 
-		if (c != null) {
+	public Long getLong(String key, Long def) {
+		Map<String, String> s = getSnapshot();
+		if (exists(s, key)) {
+			String val = s.get(key);
 			try {
-				Long val = c.getValueN();
-				return val == null ? def : val.intValue();
+				return val == null ? null : Long.valueOf(val);
 			} catch (Exception e) {
 				//no-op, parsing exception
 			}
@@ -245,9 +277,15 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		return def;
 	}
 
+	public int getInt(String key, int def) {
+		Long val = getLong(key, null);
+		return val == null ? def : val.intValue();
+	}
+
 	public String getString(String key, String def) {
-		Configuration c = get(key);
-		return c != null && c.getValue() != null ? c.getValue() : def;
+		Map<String, String> s = getSnapshot();
+		String val = exists(s, key) ? s.get(key) : null;
+		return val == null ? def : val;
 	}
 
 	@Override
@@ -265,9 +303,16 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				, start, count).getResultList();
 	}
 
+	public List<Configuration> getAfter(long id, int count) {
+		return em.createNamedQuery("getNondeletedConfigurationAfter", Configuration.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public List<Configuration> get(String search, long start, long count, String sort) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("Configuration", "c", search, true, false, sort, searchFields), Configuration.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("Configuration", "c", search, true, false, sort, searchFields), Configuration.class), search)
 				, start, count).getResultList();
 	}
 
@@ -278,7 +323,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 
 	@Override
 	public long count(String search) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("Configuration", "c", search, true, true, null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("Configuration", "c", search, true, true, null, searchFields), Long.class), search);
 		return q.getSingleResult();
 	}
 
@@ -288,8 +333,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	}
 
 	public Configuration update(Configuration entity, Long userId, boolean deleted) {
-		String key = entity.getKey();
-		String value = entity.getValue();
+		final String key = entity.getKey();
 		if (entity.getId() == null || entity.getId().longValue() <= 0) {
 			entity.setInserted(new Date());
 			entity.setDeleted(deleted);
@@ -300,6 +344,51 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 			entity.setUpdated(new Date());
 			entity = em.merge(entity);
 		}
+		invalidate();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					// snapshot might be re-loaded by the transaction itself
+					invalidate();
+					if (STATUS_COMMITTED == status) {
+						reload(key);
+						publish(key);
+					}
+				}
+			});
+		} else {
+			reload(key);
+			publish(key);
+		}
+		return entity;
+	}
+
+	private static void publish(String key) {
+		IApplication app = (IApplication)Application.get(getWicketApplicationName());
+		if (app != null) {
+			app.publishWsTopic(new ConfigChanged(key));
+		}
+	}
+
+	/**
+	 * Process configuration change made by other cluster member
+	 *
+	 * @param msg - cluster message
+	 * @return {@code true} if message was processed
+	 */
+	public boolean onMessage(IClusterWsMessage msg) {
+		if (!(msg instanceof ConfigChanged)) {
+			return false;
+		}
+		String key = ((ConfigChanged)msg).key;
+		log.debug("Configuration {} was changed on other cluster member", key);
+		invalidate();
+		reload(key);
+		return true;
+	}
+
+	private void reload(String key) {
 		switch (key) {
 			case CONFIG_CAM_FPS:
 			case CONFIG_MIC_ECHO:
@@ -320,7 +409,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				reloadCrypt();
 				break;
 			case CONFIG_APPLICATION_NAME:
-				setApplicationName(value);
+				setApplicationName(getString(CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME));
 				break;
 			case CONFIG_APPLICATION_BASE_URL:
 				reloadBaseUrl();
@@ -338,7 +427,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				reloadContentSecurityPolicy();
 				break;
 			case CONFIG_EXT_PROCESS_TTL:
-				setExtProcessTtl(toInt(value));
+				setExtProcessTtl(toInt(getString(CONFIG_EXT_PROCESS_TTL, null)));
 				break;
 			case CONFIG_DEFAULT_LANG:
 				reloadDefaultLang();
@@ -401,7 +490,6 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				reloadMyRoomsEnabled();
 				break;
 		}
-		return entity;
 	}
 
 	@Override
@@ -569,6 +657,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		reloadContentSecurityPolicy();
 		reloadDisplayNameEditable();
 		reloadMyRoomsEnabled();
+		userDao.invalidateRights(null);
 	}
 
 	private static JSONObject getHotkey(String value) {
@@ -581,6 +670,15 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				.put("code", partList.get(partList.size() - 1));
 	}
 
+	private static class ConfigChanged implements IClusterWsMessage {
+		private static final long serialVersionUID = 1L;
+		private final String key;
+
+		ConfigChanged(String key) {
+			this.key = key;
+		}
+	}
+
 	private JSONObject reloadRoomSettings() {
 		try {
 			setRoomSettings(new JSONObject()
@@ -21,6 +21,7 @@ package org.apache.openmeetings.db.dao.basic;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_STATUS;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -58,6 +59,35 @@ public class MailMessageDao implements IDataProviderDao<MailMessage> {
 				, start, count).getResultList();
 	}
 
+	/**
+	 * Atomically marks up to {@code count} queued messages as being sent, messages
+	 * claimed concurrently (i.e. by other cluster node) are skipped
+	 *
+	 * @param count - max number of messages to claim
+	 * @return list of claimed messages in {@link Status#SENDING} status
+	 */
+	public List<MailMessage> claim(int count) {
+		List<Long> ids = setLimits(em.createNamedQuery("getMailMessageIdsByStatus", Long.class).setParameter(PARAM_STATUS, Status.NONE)
+				, 0, count).getResultList();
+		List<Long> claimed = new ArrayList<>(ids.size());
+		Date now = new Date();
+		for (Long id : ids) {
+			int updated = em.createNamedQuery("claimMailMessage")
+					.setParameter("sendingStatus", Status.SENDING)
+					.setParameter("noneStatus", Status.NONE)
+					.setParameter("updated", now)
+					.setParameter("id", id)
+					.executeUpdate();
+			if (updated > 0) {
+				claimed.add(id);
+			}
+		}
+		if (claimed.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return em.createNamedQuery("getMailMessagesByIds", MailMessage.class).setParameter("ids", claimed).getResultList();
+	}
+
 	private <T> TypedQuery<T> getQuery(boolean isCount, String search, String order, Class<T> clazz) {
 		StringBuilder sb = new StringBuilder("SELECT ");
 		sb.append(isCount ? "COUNT(m)" : "m")
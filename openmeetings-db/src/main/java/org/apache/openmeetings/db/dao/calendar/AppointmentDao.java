@@ -23,11 +23,11 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CALENDAR
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -87,6 +87,13 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 		return em.createNamedQuery("getAppointments", Appointment.class).getResultList();
 	}
 
+	public List<Appointment> getAfter(long id, int count) {
+		return em.createNamedQuery("getAppointmentsAfter", Appointment.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public Appointment update(Appointment a, Long userId) {
 		return update(a, userId, true);
@@ -181,12 +188,40 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 		return listAppoints;
 	}
 
-	public List<Appointment> getInRange(Calendar start, Calendar end) {
-		TypedQuery<Appointment> q = em.createNamedQuery("appointmentsInRangeRemind", Appointment.class);
-		q.setParameter("none", Reminder.NONE);
-		q.setParameter(PARAM_START, start.getTime());
-		q.setParameter("end", end.getTime());
-		return q.getResultList();
+	/**
+	 * Marks all appointments due for reminder as reminded using single update,
+	 * claimed appointments are stamped with unique claim token, so reminder will
+	 * not be sent twice (appointments claimed concurrently, i.e. by other cluster
+	 * node, get other token)
+	 *
+	 * Appointments reminder can't be sent for (without reminder, deleted or already
+	 * ended) are marked as reminded as well, so only pending reminders stay in the
+	 * range of {@code appointment_remind_idx}
+	 *
+	 * @param start - appointments ended before this date are ignored
+	 * @param due - appointments started before this date are due
+	 * @return list of claimed appointments
+	 */
+	public List<Appointment> claimReminders(Date start, Date due) {
+		em.createNamedQuery("skipAppointmentReminders")
+				.setParameter("none", Reminder.NONE)
+				.setParameter(PARAM_START, start)
+				.setParameter("due", due)
+				.executeUpdate();
+		String claim = UUID.randomUUID().toString();
+		int count = em.createNamedQuery("claimAppointmentReminders")
+				.setParameter("claim", claim)
+				.setParameter("updated", new Date())
+				.setParameter("none", Reminder.NONE)
+				.setParameter(PARAM_START, start)
+				.setParameter("due", due)
+				.executeUpdate();
+		if (count == 0) {
+			return new ArrayList<>();
+		}
+		return em.createNamedQuery("getClaimedAppointmentReminders", Appointment.class)
+				.setParameter("claim", claim)
+				.getResultList();
 	}
 
 	// next appointment to select date
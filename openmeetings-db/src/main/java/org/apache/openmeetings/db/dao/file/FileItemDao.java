@@ -21,8 +21,16 @@ package org.apache.openmeetings.db.dao.file;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.persistence.TypedQuery;
@@ -30,12 +38,17 @@ import javax.persistence.TypedQuery;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
 import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.openmeetings.db.entity.file.FileUsage.Scope;
 import org.apache.openmeetings.db.entity.user.Group;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author sebastianwagner
@@ -45,6 +58,12 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class FileItemDao extends BaseFileItemDao {
 	private static final Logger log = LoggerFactory.getLogger(FileItemDao.class);
+	private static final int MAX_DEPTH = 100;
+	private static final int RECONCILE_PAGE_SIZE = 500;
+	@Autowired
+	private FileUsageDao usageDao;
+	@Autowired
+	private PlatformTransactionManager txManager;
 
 	public List<FileItem> getByRoom(Long roomId) {
 		log.debug("getByRoom roomId :: {}", roomId);
@@ -100,6 +119,18 @@ public class FileItemDao extends BaseFileItemDao {
 		return bf instanceof FileItem ? (FileItem)bf : null;
 	}
 
+	/**
+	 * @param contentHash - SHA-256 of the uploaded binary
+	 * @param type - type of the file
+	 * @return not deleted files having same content, oldest first
+	 */
+	public List<FileItem> getByContentHash(String contentHash, Type type) {
+		return em.createNamedQuery("getFilesByContentHash", FileItem.class)
+				.setParameter("contentHash", contentHash)
+				.setParameter("type", type)
+				.getResultList();
+	}
+
 	@Override
 	public FileItem get(Long id) {
 		BaseFileItem bf = super.get(id);
@@ -121,6 +152,13 @@ public class FileItemDao extends BaseFileItemDao {
 		return em.createNamedQuery("getAllFiles", FileItem.class).getResultList();
 	}
 
+	public List<FileItem> getAfter(long id, int count) {
+		return em.createNamedQuery("getAllFilesAfter", FileItem.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	public List<FileItem> getExternal(String externalType) {
 		log.debug("get external started");
 
@@ -152,10 +190,41 @@ public class FileItemDao extends BaseFileItemDao {
 		return update(f);
 	}
 
+	/**
+	 * Stores the item, usage counters are not changed, items should be moved with
+	 * {@link #move(FileItem, BaseFileItem)} and deleted with {@link #delete(BaseFileItem)}
+	 *
+	 * @param f - the item to store
+	 * @return stored item
+	 */
 	public FileItem update(FileItem f) {
 		return (FileItem)super.updateBase(f);
 	}
 
+	@Override
+	public void delete(BaseFileItem f) {
+		if (f instanceof FileItem && f.getId() != null && !f.isDeleted()) {
+			FileItem fi = (FileItem)f;
+			addUsage(fi, -getSize(fi));
+		}
+		super.delete(f);
+	}
+
+	/**
+	 * Re-calculates the size of the files of this item on disk and updates usage counters
+	 *
+	 * @param f - the item converted files were written for
+	 * @return updated item
+	 */
+	public FileItem updateStorageSize(FileItem f) {
+		long size = getDiskSize(f);
+		long delta = size - f.getStorageSize();
+		f.setStorageSize(size);
+		f = update(f);
+		addUsage(f, delta);
+		return f;
+	}
+
 	private void updateChilds(FileItem f) {
 		for (FileItem child : getByParent(f.getId())) {
 			child.setOwnerId(f.getOwnerId());
@@ -182,6 +251,8 @@ public class FileItemDao extends BaseFileItemDao {
 		if (f == null) {
 			return null;
 		}
+		long size = getSize(f);
+		addUsage(f, -size);
 
 		if (parentId < 0) {
 			if (parentId == -1) {
@@ -201,7 +272,27 @@ public class FileItemDao extends BaseFileItemDao {
 		if (Type.FOLDER == f.getType()) {
 			updateChilds(f);
 		}
-		return update(f);
+		f = update(f);
+		addUsage(f, size);
+		return f;
+	}
+
+	/**
+	 * @param f - the item to move
+	 * @param p - new parent, in case it is not a folder the item is placed next to it
+	 *
+	 * @return moved item
+	 */
+	public FileItem move(FileItem f, BaseFileItem p) {
+		long size = getSize(f);
+		addUsage(f, -size);
+		f.setParentId(p.getId());
+		f.setOwnerId(p.getOwnerId());
+		f.setRoomId(p.getRoomId());
+		f.setGroupId(p.getGroupId());
+		f = update(f);
+		addUsage(f, size);
+		return f;
 	}
 
 	public List<BaseFileItem> getAllRoomFiles(String search, long start, long count, Long roomId/*, Long ownerId*/, List<Group> groups) {
@@ -220,22 +311,59 @@ public class FileItemDao extends BaseFileItemDao {
 	}
 
 	public long getOwnSize(Long userId) {
-		return getSize(getByOwner(userId));
+		return usageDao.get(Scope.OWNER, userId);
 	}
 
 	public long getRoomSize(Long roomId) {
-		return getSize(getByRoom(roomId));
+		return usageDao.get(Scope.ROOM, roomId);
 	}
 
+	public long getGroupSize(Long groupId) {
+		return usageDao.get(Scope.GROUP, groupId);
+	}
+
+	/**
+	 * Children are read level by level, so the number of queries only depends
+	 * on the depth of the tree
+	 *
+	 * @param list - the items to get size of
+	 * @return size of the items including all their children, stored sizes are used
+	 */
 	public long getSize(List<FileItem> list) {
 		long size = 0;
+		List<Long> folders = new ArrayList<>();
 		for (FileItem f : list) {
-			size += getSize(f);
+			size += f.getStorageSize();
+			if (Type.FOLDER == f.getType() && f.getId() != null) {
+				folders.add(f.getId());
+			}
+		}
+		for (int i = 0; !folders.isEmpty() && i < MAX_DEPTH; ++i) {
+			List<Object[]> children = em.createNamedQuery("getFileSizesByParents", Object[].class)
+					.setParameter("ids", folders)
+					.getResultList();
+			folders = new ArrayList<>();
+			for (Object[] child : children) {
+				if (child[2] != null) {
+					size += (Long)child[2];
+				}
+				if (Type.FOLDER == child[1]) {
+					folders.add((Long)child[0]);
+				}
+			}
 		}
 		return size;
 	}
 
+	/**
+	 * @param f - the item to get size of
+	 * @return size of the item including all its children, stored sizes are used
+	 */
 	public long getSize(FileItem f) {
+		return getSize(List.of(f));
+	}
+
+	private static long getDiskSize(FileItem f) {
 		long size = 0;
 		try {
 			if (f.exists()) {
@@ -254,14 +382,103 @@ public class FileItemDao extends BaseFileItemDao {
 						break;
 				}
 			}
-			if (Type.FOLDER == f.getType()) {
-				for (FileItem child : getByParent(f.getId())) {
-					size += getSize(child);
-				}
-			}
 		} catch (Exception err) {
-			log.error("[getSize] ", err);
+			log.error("[getDiskSize] ", err);
 		}
 		return size;
 	}
+
+	private static FileItem getRoot(FileItem f, Function<Long, FileItem> lookup) {
+		FileItem cur = f;
+		for (int i = 0; cur != null && cur.getParentId() != null && i < MAX_DEPTH; ++i) {
+			cur = lookup.apply(cur.getParentId());
+		}
+		return cur == null || cur.getParentId() != null ? null : cur;
+	}
+
+	/**
+	 * Files are accounted the same way they are listed: personal files (by owner),
+	 * otherwise room and group files
+	 */
+	private static void forEachScope(FileItem root, BiConsumer<Scope, Long> consumer) {
+		if (root.getOwnerId() != null) {
+			consumer.accept(Scope.OWNER, root.getOwnerId());
+		} else {
+			if (root.getRoomId() != null) {
+				consumer.accept(Scope.ROOM, root.getRoomId());
+			}
+			if (root.getGroupId() != null) {
+				consumer.accept(Scope.GROUP, root.getGroupId());
+			}
+		}
+	}
+
+	private void addUsage(FileItem f, long delta) {
+		if (delta == 0) {
+			return;
+		}
+		FileItem root = getRoot(f, this::get);
+		if (root != null) {
+			forEachScope(root, (scope, id) -> usageDao.add(scope, id, delta));
+		}
+	}
+
+	private List<FileItem> getRoots(Scope scope, Long scopeId) {
+		switch (scope) {
+			case OWNER:
+				return getByOwner(scopeId);
+			case ROOM:
+				return getByRoom(scopeId);
+			case GROUP:
+				return getByGroup(scopeId);
+			default:
+				return List.of();
+		}
+	}
+
+	/**
+	 * Re-calculates sizes of all files on disk and re-builds usage counters
+	 *
+	 * Files are processed page by page, each page in its own transaction,
+	 * then every counter is re-calculated from stored sizes and set in its own
+	 * transaction while its row is locked, so concurrent changes are not lost
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void reconcileUsage() {
+		log.debug("reconcileUsage started");
+		TransactionTemplate tt = new TransactionTemplate(txManager);
+		final Map<Scope, Set<Long>> scopes = new EnumMap<>(Scope.class);
+		// existing counters are re-calculated as well, so counters without files are reset
+		tt.execute(status -> usageDao.getAll())
+				.forEach((scope, usage) -> scopes.computeIfAbsent(scope, sc -> new HashSet<>()).addAll(usage.keySet()));
+		final Map<Long, FileItem> parents = new HashMap<>();
+		Function<Long, FileItem> lookup = id -> parents.computeIfAbsent(id, this::get);
+		long count = 0;
+		Long lastId = 0L;
+		while (lastId != null) {
+			final Long after = lastId;
+			List<FileItem> page = tt.execute(status -> {
+				List<FileItem> list = em.createNamedQuery("getFilesAfter", FileItem.class)
+						.setParameter("id", after)
+						.setMaxResults(RECONCILE_PAGE_SIZE)
+						.getResultList();
+				for (FileItem f : list) {
+					final long size = getDiskSize(f);
+					if (size != f.getStorageSize()) {
+						f.setStorageSize(size);
+					}
+					FileItem root = getRoot(f, lookup);
+					if (root != null) {
+						forEachScope(root, (scope, id) -> scopes.computeIfAbsent(scope, sc -> new HashSet<>()).add(id));
+					}
+				}
+				return list;
+			});
+			count += page.size();
+			lastId = page.size() < RECONCILE_PAGE_SIZE ? null : page.get(page.size() - 1).getId();
+		}
+		scopes.forEach((scope, ids) -> ids.forEach(id ->
+				tt.executeWithoutResult(status -> usageDao.reconcile(scope, id, () -> getSize(getRoots(scope, id))))));
+		log.debug("reconcileUsage done, {} items processed", count);
+	}
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.file;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.openmeetings.db.entity.file.FileUsage;
+import org.apache.openmeetings.db.entity.file.FileUsage.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains persisted storage usage counters, so quota and size displays
+ * don't need to walk the file tree
+ */
+@Repository
+@Transactional
+public class FileUsageDao {
+	private static final Logger log = LoggerFactory.getLogger(FileUsageDao.class);
+	@PersistenceContext
+	private EntityManager em;
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	/**
+	 * @param scope - scope of the counter
+	 * @param scopeId - id of the owner, room or group
+	 * @return number of bytes used, {@code 0} if unknown
+	 */
+	public long get(Scope scope, Long scopeId) {
+		if (scopeId == null) {
+			return 0;
+		}
+		List<FileUsage> list = em.createNamedQuery("getFileUsage", FileUsage.class)
+				.setParameter("scope", scope)
+				.setParameter("scopeId", scopeId)
+				.getResultList();
+		return list.isEmpty() ? 0 : Math.max(0, list.get(0).getSize());
+	}
+
+	/**
+	 * @return current values of all counters
+	 */
+	public Map<Scope, Map<Long, Long>> getAll() {
+		Map<Scope, Map<Long, Long>> result = new EnumMap<>(Scope.class);
+		for (FileUsage u : em.createNamedQuery("getAllFileUsage", FileUsage.class).getResultList()) {
+			result.computeIfAbsent(u.getScope(), sc -> new HashMap<>()).put(u.getScopeId(), u.getSize());
+		}
+		return result;
+	}
+
+	/**
+	 * Atomically adds delta to the counter, counter row is created on first use
+	 *
+	 * @param scope - scope of the counter
+	 * @param scopeId - id of the owner, room or group
+	 * @param delta - number of bytes to add, might be negative
+	 */
+	public void add(Scope scope, Long scopeId, long delta) {
+		if (scopeId == null || delta == 0) {
+			return;
+		}
+		if (!exists(scope, scopeId)) {
+			create(scope, scopeId);
+		}
+		update("addFileUsage", scope, scopeId, "delta", delta);
+	}
+
+	/**
+	 * Sets re-calculated value of the counter, the counter row is locked before
+	 * the value is calculated, so concurrent {@link #add(Scope, Long, long)} waits
+	 * for the transaction and is applied on top of the new value
+	 *
+	 * @param scope - scope of the counter
+	 * @param scopeId - id of the owner, room or group
+	 * @param size - calculates the number of bytes used
+	 */
+	public void reconcile(Scope scope, Long scopeId, LongSupplier size) {
+		if (!exists(scope, scopeId)) {
+			create(scope, scopeId);
+		}
+		// no-op update takes the row lock
+		update("addFileUsage", scope, scopeId, "delta", 0L);
+		update("setFileUsage", scope, scopeId, "size", size.getAsLong());
+	}
+
+	private void update(String query, Scope scope, Long scopeId, String param, long value) {
+		em.createNamedQuery(query)
+				.setParameter(param, value)
+				.setParameter("updated", new Date())
+				.setParameter("scope", scope)
+				.setParameter("scopeId", scopeId)
+				.executeUpdate();
+	}
+
+	private boolean exists(Scope scope, Long scopeId) {
+		return !em.createNamedQuery("getFileUsage", FileUsage.class)
+				.setParameter("scope", scope)
+				.setParameter("scopeId", scopeId)
+				.getResultList().isEmpty();
+	}
+
+	/**
+	 * Zero counter is created in separate transaction, row created concurrently
+	 * is fine, {@code file_usage_scope_idx} guarantees there is only one
+	 */
+	private void create(Scope scope, Long scopeId) {
+		TransactionTemplate tt = new TransactionTemplate(txManager);
+		tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			tt.executeWithoutResult(status -> em.persist(new FileUsage(scope, scopeId, 0)));
+		} catch (RuntimeException e) {
+			log.debug("Usage counter {}:{} was created concurrently", scope, scopeId, e);
+		}
+	}
+}
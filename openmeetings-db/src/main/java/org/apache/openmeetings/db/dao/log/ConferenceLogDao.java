@@ -18,8 +18,17 @@
  */
 package org.apache.openmeetings.db.dao.log;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -27,17 +36,64 @@ import org.apache.openmeetings.db.entity.log.ConferenceLog;
 import org.apache.openmeetings.db.entity.log.ConferenceLog.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Conference log is written asynchronously
+ *
+ * Events are queued and persisted by single background thread in order they
+ * were added, one transaction per batch (entries are inserted one by one, since
+ * IDENTITY ids prevent JDBC statement batching). In case the queue is full the
+ * caller waits up to {@link #OFFER_TIMEOUT} ms, the entry is dropped after that.
+ * Failed batch is retried up to {@link #MAX_RETRIES} times and then re-written
+ * entry by entry to skip invalid entries.
+ */
 @Repository
 @Transactional
 public class ConferenceLogDao {
 	private static final Logger log = LoggerFactory.getLogger(ConferenceLogDao.class);
+	private static final int QUEUE_CAPACITY = 10000;
+	private static final int BATCH_SIZE = 100;
+	private static final long FLUSH_WAIT = 30 * 1000L;
+	private static final long OFFER_TIMEOUT = 100;
+	private static final int MAX_RETRIES = 3;
+	private static final long RETRY_DELAY = 1000;
+	// consecutive failures of single entries, the database is considered unavailable
+	private static final int MAX_FAILURES = 3;
+	private final BlockingQueue<ConferenceLog> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final LongAdder queued = new LongAdder();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder retried = new LongAdder();
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong processed = new AtomicLong();
+	private final Object processedLock = new Object();
+	private final LongAdder waited = new LongAdder();
+	private final LongAdder direct = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final AtomicLong maxDepth = new AtomicLong();
+	private volatile boolean running;
+	private Thread writer;
 
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	@PostConstruct
+	void init() {
+		running = true;
+		writer = new Thread(this::write, "conf-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
 
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public ConferenceLog add(Type type, Long userId, String streamid, Long roomId, String userip, String scopeName) {
 		ConferenceLog confLog = new ConferenceLog();
 		confLog.setType(type);
@@ -48,14 +104,206 @@ public class ConferenceLogDao {
 		confLog.setRoomId(roomId);
 		confLog.setUserip(userip);
 
-		em.persist(confLog);
 		log.debug("[add]: {}", confLog);
+		if (!running) {
+			// writer is stopped
+			direct.increment();
+			persist(List.of(confLog));
+			return confLog;
+		}
+		if (!queue.offer(confLog)) {
+			waited.increment();
+			log.debug("Conference log queue is full, waiting, {}", getStats());
+			try {
+				if (!queue.offer(confLog, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					// the caller should not hang in case database is unavailable
+					dropped.increment();
+					log.warn("Conference log queue is full, entry is dropped: {}, {}", confLog, getStats());
+					return confLog;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				dropped.increment();
+				return confLog;
+			}
+		}
+		enqueued.incrementAndGet();
+		queued.increment();
+		maxDepth.accumulateAndGet(queue.size(), Math::max);
 		return confLog;
 	}
 
+	private void write() {
+		List<ConferenceLog> batch = new ArrayList<>(BATCH_SIZE);
+		while (running || !queue.isEmpty()) {
+			try {
+				ConferenceLog first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, BATCH_SIZE - 1);
+				persist(batch);
+				synchronized (processedLock) {
+					processed.addAndGet(batch.size());
+					processedLock.notifyAll();
+				}
+			} catch (InterruptedException e) {
+				if (running) {
+					log.warn("Conference log writer was interrupted");
+				}
+				Thread.currentThread().interrupt();
+				break;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void persist(List<ConferenceLog> batch) {
+		for (int i = 1; i <= MAX_RETRIES; ++i) {
+			try {
+				doPersist(batch);
+				written.add(batch.size());
+				return;
+			} catch (Exception e) {
+				log.warn("Unexpected error while writing {} conference log entries, attempt {}", batch.size(), i, e);
+			}
+			if (i < MAX_RETRIES) {
+				retried.increment();
+				try {
+					Thread.sleep(RETRY_DELAY * i);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		// entries are re-written one by one to skip invalid ones
+		int failures = 0;
+		for (ConferenceLog l : batch) {
+			if (failures < MAX_FAILURES) {
+				try {
+					doPersist(List.of(l));
+					written.increment();
+					failures = 0;
+					continue;
+				} catch (Exception e) {
+					log.error("Unable to write conference log entry {}", l, e);
+					++failures;
+				}
+			}
+			failed.increment();
+		}
+	}
+
+	private void doPersist(List<ConferenceLog> batch) {
+		new TransactionTemplate(txManager).executeWithoutResult(status -> {
+			for (ConferenceLog l : batch) {
+				l.setId(null); // might be assigned by rolled back transaction
+				em.persist(l);
+			}
+		});
+	}
+
+	/**
+	 * Waits (up to {@link #FLUSH_WAIT} ms) until all entries queued before the call are written
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public void flush() {
+		final long target = enqueued.get();
+		final long deadline = System.currentTimeMillis() + FLUSH_WAIT;
+		synchronized (processedLock) {
+			while (running && processed.get() < target) {
+				long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) {
+					log.warn("Timed out while flushing conference log, {}", getStats());
+					return;
+				}
+				try {
+					processedLock.wait(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes IP address from all log entries of the user,
+	 * entries still queued are written first
+	 *
+	 * @param userId - id of the user
+	 */
+	public void clearUserIp(Long userId) {
+		flush();
+		em.createNamedQuery("clearLogUserIpByUser")
+			.setParameter("userId", userId)
+			.executeUpdate();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		running = false;
+		if (writer != null) {
+			try {
+				writer.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		List<ConferenceLog> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		if (!rest.isEmpty()) {
+			persist(rest);
+		}
+		log.debug("Conference log writer is stopped, {}", getStats());
+	}
+
 	public int clear(long ttl) {
 		return em.createNamedQuery("clearLogUserIp")
 			.setParameter("date", new Date(System.currentTimeMillis() - ttl))
 			.executeUpdate();
 	}
+
+	/**
+	 * @return number of entries waiting to be written
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return number of times caller had to wait due to the queue was full
+	 */
+	public long getWaited() {
+		return waited.sum();
+	}
+
+	/**
+	 * @return number of entries written by the caller due to the writer is stopped
+	 */
+	public long getDirect() {
+		return direct.sum();
+	}
+
+	/**
+	 * @return number of entries dropped due to the queue was full
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return number of entries can't be written
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	public String getStats() {
+		return String.format("ConferenceLogDao [queue: %s, max queue: %s, queued: %s, written: %s, retried: %s, failed: %s, waited: %s, dropped: %s, direct: %s]"
+				, getQueueDepth(), maxDepth.get(), queued.sum(), written.sum(), retried.sum(), getFailed(), getWaited(), getDropped(), getDirect());
+	}
 }
@@ -18,26 +18,37 @@
  */
 package org.apache.openmeetings.db.dao.record;
 
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
+
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.db.entity.record.RecordingChunk;
 import org.apache.openmeetings.db.entity.record.RecordingChunk.Status;
 import org.apache.openmeetings.db.entity.record.RecordingChunk.Type;
+import org.apache.openmeetings.util.ws.IClusterWsMessage;
+import org.apache.wicket.Application;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 @Transactional
 public class RecordingChunkDao {
 	private static final Logger log = LoggerFactory.getLogger(RecordingChunkDao.class);
 	private static final String PARAM_RECID = "recordingId";
+	private static final Map<Long, CompletableFuture<Long>> stopped = new ConcurrentHashMap<>();
 	@PersistenceContext
 	private EntityManager em;
 	@Autowired
@@ -89,7 +100,65 @@ public class RecordingChunkDao {
 			chunk.setEnd(new Date());
 			chunk.setStreamStatus(Status.STOPPED);
 			update(chunk);
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						notifyStopped(chunkId);
+					}
+				});
+			} else {
+				notifyStopped(chunkId);
+			}
+		}
+	}
+
+	/**
+	 * Future to be completed as soon as the chunk is stopped (on this or any other cluster member)
+	 *
+	 * Should be obtained before checking the status of the chunk, and released by {@link #release(Long)}
+	 * after wait is over
+	 *
+	 * @param chunkId - id of the chunk
+	 * @return future completed with the id of the chunk
+	 */
+	public static CompletableFuture<Long> onStop(Long chunkId) {
+		return stopped.computeIfAbsent(chunkId, id -> new CompletableFuture<>());
+	}
+
+	public static void release(Long chunkId) {
+		stopped.remove(chunkId);
+	}
+
+	private static void notifyStopped(Long chunkId) {
+		complete(chunkId);
+		IApplication app = (IApplication)Application.get(getWicketApplicationName());
+		if (app != null) {
+			app.publishWsTopic(new ChunkStopped(chunkId));
+		}
+	}
+
+	private static void complete(Long chunkId) {
+		CompletableFuture<Long> f = stopped.remove(chunkId);
+		if (f != null) {
+			f.complete(chunkId);
+		}
+	}
+
+	/**
+	 * Process chunk stop made by other cluster member
+	 *
+	 * @param msg - cluster message
+	 * @return {@code true} if message was processed
+	 */
+	public static boolean onMessage(IClusterWsMessage msg) {
+		if (!(msg instanceof ChunkStopped)) {
+			return false;
 		}
+		Long chunkId = ((ChunkStopped)msg).chunkId;
+		log.debug("Chunk {} was stopped on other cluster member", chunkId);
+		complete(chunkId);
+		return true;
 	}
 
 	public RecordingChunk update(RecordingChunk chunk) {
@@ -103,4 +172,13 @@ public class RecordingChunkDao {
 		}
 		return chunk;
 	}
+
+	private static class ChunkStopped implements IClusterWsMessage {
+		private static final long serialVersionUID = 1L;
+		private final Long chunkId;
+
+		ChunkStopped(Long chunkId) {
+			this.chunkId = chunkId;
+		}
+	}
 }
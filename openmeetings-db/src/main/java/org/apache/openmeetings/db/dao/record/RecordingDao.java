@@ -81,6 +81,14 @@ public class RecordingDao extends BaseFileItemDao {
 				, FETCH_GROUP_BACKUP);
 	}
 
+	public List<Recording> getAfter(long id, int count) {
+		return fillLazy(em
+				, oem -> oem.createNamedQuery("getRecordingsAfter", Recording.class)
+						.setParameter("id", id)
+						.setMaxResults(count)
+				, FETCH_GROUP_BACKUP);
+	}
+
 	public List<Recording> getByExternalType(String externalType) {
 		log.debug("getByExternalType :externalType: {}", externalType);
 
@@ -26,6 +26,7 @@ import static org.apache.openmeetings.db.entity.room.Invitation.SELECT_I;
 import static org.apache.openmeetings.db.util.DaoHelper.appendSort;
 import static org.apache.openmeetings.db.util.DaoHelper.appendWhereClause;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 import static org.apache.openmeetings.util.CalendarHelper.getZoneId;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
 
@@ -80,7 +81,7 @@ public class InvitationDao implements IDataProviderDao<Invitation> {
 
 	@Override
 	public List<Invitation> get(String search, long start, long count, String order) {
-		return setLimits(em.createQuery(getQuery(SELECT_I, BY_ALL, search, order), Invitation.class)
+		return setLimits(setSearch(em.createQuery(getQuery(SELECT_I, BY_ALL, search, order), Invitation.class), search)
 				, start, count).getResultList();
 	}
 
@@ -91,28 +92,28 @@ public class InvitationDao implements IDataProviderDao<Invitation> {
 
 	@Override
 	public long count(String search) {
-		return em.createQuery(getQuery(SELECT_COUNT, BY_ALL, search), Long.class).getSingleResult();
+		return setSearch(em.createQuery(getQuery(SELECT_COUNT, BY_ALL, search), Long.class), search).getSingleResult();
 	}
 
 	public List<Invitation> getGroup(String search, long start, long count, Long userId, String order) {
-		return setLimits(em.createQuery(getQuery(SELECT_I, BY_GROUP, search, order), Invitation.class)
+		return setLimits(setSearch(em.createQuery(getQuery(SELECT_I, BY_GROUP, search, order), Invitation.class), search)
 					.setParameter(PARAM_USER_ID, userId)
 				, start, count).getResultList();
 	}
 
 	public long countGroup(String search, Long userId) {
-		return em.createQuery(getQuery(SELECT_COUNT, BY_GROUP, search), Long.class)
+		return setSearch(em.createQuery(getQuery(SELECT_COUNT, BY_GROUP, search), Long.class), search)
 				.setParameter(PARAM_USER_ID, userId).getSingleResult();
 	}
 
 	public List<Invitation> getUser(String search, long start, long count, Long userId, String order) {
-		return setLimits(em.createQuery(getQuery(SELECT_I, BY_USER, search, order), Invitation.class)
+		return setLimits(setSearch(em.createQuery(getQuery(SELECT_I, BY_USER, search, order), Invitation.class), search)
 					.setParameter(PARAM_USER_ID, userId)
 				, start, count).getResultList();
 	}
 
 	public long countUser(String search, Long userId) {
-		return em.createQuery(getQuery(SELECT_COUNT, BY_USER, search), Long.class)
+		return setSearch(em.createQuery(getQuery(SELECT_COUNT, BY_USER, search), Long.class), search)
 				.setParameter(PARAM_USER_ID, userId).getSingleResult();
 	}
 
@@ -94,6 +94,13 @@ public class PollDao {
 		return em.createNamedQuery("getPollListBackup", RoomPoll.class).getResultList();
 	}
 
+	public List<RoomPoll> getAfter(long id, int count) {
+		return em.createNamedQuery("getPollListBackupAfter", RoomPoll.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	public List<RoomPoll> getArchived(Long roomId) {
 		log.debug(" :: getArchived :: {}", roomId);
 		return em.createNamedQuery("getArchivedPollList",RoomPoll.class)
@@ -20,6 +20,7 @@ package org.apache.openmeetings.db.dao.room;
 
 import static org.apache.openmeetings.db.util.DaoHelper.fillLazy;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 import static org.apache.openmeetings.db.util.DaoHelper.single;
 import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
@@ -30,9 +31,9 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.isSipEnabled;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.TimeZone;
 
 import javax.persistence.EntityManager;
@@ -90,6 +91,14 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 				, "roomModerators", "roomGroups", "roomFiles");
 	}
 
+	public List<Room> getAfter(long id, int count) {
+		return fillLazy(em
+				, oem -> oem.createNamedQuery("getBackupRoomsAfter", Room.class)
+						.setParameter("id", id)
+						.setMaxResults(count)
+				, "roomModerators", "roomGroups", "roomFiles");
+	}
+
 	public List<Room> get(List<Long> ids) {
 		return em.createNamedQuery("getRoomsByIds", Room.class).setParameter("ids", ids).getResultList();
 	}
@@ -102,14 +111,14 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 
 	@Override
 	public List<Room> get(String search, long start, long count, String sort) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, false, sort, searchFields), Room.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, false, sort, searchFields), Room.class), search)
 				, start, count).getResultList();
 	}
 
 	@Override
 	public List<Room> adminGet(String search, Long adminId, long start, long count, String order) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, false
-				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), Room.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, false
+				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), Room.class), search)
 					.setParameter("adminId", adminId)
 				, start, count).getResultList();
 	}
@@ -122,14 +131,14 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 
 	@Override
 	public long count(String search) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, true, null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, true, null, searchFields), Long.class), search);
 		return q.getSingleResult();
 	}
 
 	@Override
 	public long adminCount(String search, Long adminId) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, true
-				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, true
+				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class), search);
 		q.setParameter("adminId", adminId);
 		return q.getSingleResult();
 	}
@@ -255,27 +264,29 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 				, "roomGroups"));
 	}
 
+	/**
+	 * Rooms recently entered by the user, most recent first
+	 *
+	 * Rooms are fetched by single query joining last entry of each room, limited to
+	 * {@code RECENT_ROOMS_COUNT}, the log part is covered by user/type/room index
+	 *
+	 * @param userId - id of the user
+	 * @return list of recent rooms
+	 */
 	public List<Room> getRecent(Long userId) {
-		List<Room> result = new ArrayList<>();
-		Set<Long> ids = new HashSet<>();
-		//(RECENT_ROOMS_COUNT + 1) passes required to preserve the order :(
-		for (ConferenceLog l : em.createNamedQuery("getLogRecentRooms", ConferenceLog.class)
-				.setParameter("roomEnter", ConferenceLog.Type.ROOM_ENTER)
-				.setParameter(PARAM_USER_ID, userId)
-				.getResultList())
+		// same room might be returned twice in case it was entered twice at the same time
+		Map<Long, Room> result = new LinkedHashMap<>();
+		for (Object[] row : fillLazy(em
+				, oem -> oem.createNamedQuery("getLogRecentRooms", Object[].class)
+					.setParameter("roomEnter", ConferenceLog.Type.ROOM_ENTER)
+					.setParameter(PARAM_USER_ID, userId)
+					.setMaxResults(RECENT_ROOMS_COUNT)
+				, "roomModerators", "roomGroups", "roomFiles"))
 		{
-			if (!ids.contains(l.getRoomId())) {
-				Room r = get(l.getRoomId());
-				if (r != null && !r.isDeleted()) {
-					result.add(r);
-					ids.add(r.getId());
-				}
-			}
-			if (ids.size() == RECENT_ROOMS_COUNT) {
-				break;
-			}
+			Room r = (Room)row[0];
+			result.putIfAbsent(r.getId(), r);
 		}
-		return result;
+		return new ArrayList<>(result.values());
 	}
 
 	// Methods for backup export
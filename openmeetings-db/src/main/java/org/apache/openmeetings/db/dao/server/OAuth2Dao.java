@@ -19,6 +19,7 @@
 package org.apache.openmeetings.db.dao.server;
 
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.isAllowRegisterOauth;
 
 import java.util.ArrayList;
@@ -63,9 +64,16 @@ public class OAuth2Dao implements IDataProviderDao<OAuthServer> {
 				, start, count).getResultList();
 	}
 
+	public List<OAuthServer> getAfter(long id, int count) {
+		return em.createNamedQuery("getOAuthServersAfter", OAuthServer.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public List<OAuthServer> get(String search, long start, long count, String order) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("OAuthServer", "s", search, true, false, null, searchFields), OAuthServer.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("OAuthServer", "s", search, true, false, null, searchFields), OAuthServer.class), search)
 				, start, count).getResultList();
 	}
 
@@ -77,7 +85,7 @@ public class OAuth2Dao implements IDataProviderDao<OAuthServer> {
 
 	@Override
 	public long count(String search) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("OAuthServer", "s", search, true, true, null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("OAuthServer", "s", search, true, true, null, searchFields), Long.class), search);
 		return q.getSingleResult();
 	}
 
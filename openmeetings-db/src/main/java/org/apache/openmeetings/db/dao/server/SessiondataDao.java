@@ -27,6 +27,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.util.LocalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -41,8 +42,13 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class SessiondataDao {
 	private static final Logger log = LoggerFactory.getLogger(SessiondataDao.class);
+	private static final int CACHE_SIZE = 10000;
+	private static final long CACHE_TTL = 60 * 1000L;
+	// session is refreshed in DB not often than this interval, should be much less than session timeout
+	private static final long REFRESH_INTERVAL = 60 * 1000L;
 	@PersistenceContext
 	private EntityManager em;
+	private final LocalCache<String, Sessiondata> cache = new LocalCache<>("sessiondata", CACHE_SIZE, CACHE_TTL);
 
 	private static Sessiondata newInstance() {
 		log.debug("startsession :: startsession");
@@ -90,20 +96,38 @@ public class SessiondataDao {
 	 * @return {@link Sessiondata} with sessionId == SID, or null if not found
 	 */
 	public Sessiondata find(String sid) {
-		if (sid == null) {
+		if (sid == null || sid.indexOf('%') > -1 || sid.indexOf('_') > -1) {
 			return null;
 		}
-		//MSSql find nothing in case SID is passed as-is without wildcarting '%SID%'
+		Sessiondata sd = cache.get(sid, this::get);
+		return sd == null ? null : copy(sd);
+	}
+
+	private Sessiondata get(String sid) {
+		//MSSql find nothing in case SID is passed as-is without wildcarting,
+		//trailing wildcard 'SID%' still allows session_id_idx to be used
 		List<Sessiondata> sessions = em.createNamedQuery("getSessionById", Sessiondata.class)
-				.setParameter("sessionId", String.format("%%%s%%", sid)).getResultList();
+				.setParameter("sessionId", String.format("%s%%", sid)).getResultList();
 
-		if (sessions.isEmpty()) {
-			return null;
-		}
-		Sessiondata sd = sessions.get(0);
-		if (sd == null || sd.getUserId() == null || sd.getUserId().equals(Long.valueOf(0)) || !sid.equals(sd.getSessionId())) {
-			return null;
+		for (Sessiondata sd : sessions) {
+			if (sd != null && sd.getUserId() != null && !sd.getUserId().equals(Long.valueOf(0)) && sid.equals(sd.getSessionId())) {
+				return copy(sd);
+			}
 		}
+		return null;
+	}
+
+	private static Sessiondata copy(Sessiondata src) {
+		Sessiondata sd = new Sessiondata();
+		sd.setId(src.getId());
+		sd.setUserId(src.getUserId());
+		sd.setRoomId(src.getRoomId());
+		sd.setSessionId(src.getSessionId());
+		sd.setCreated(src.getCreated());
+		sd.setRefreshed(src.getRefreshed());
+		sd.setXml(src.getXml());
+		sd.setPermanent(src.isPermanent());
+		sd.setLanguageId(src.getLanguageId());
 		return sd;
 	}
 
@@ -118,6 +142,9 @@ public class SessiondataDao {
 		if (sd == null) {
 			return newInstance();
 		}
+		if (sd.getRefreshed() != null && System.currentTimeMillis() - sd.getRefreshed().getTime() < REFRESH_INTERVAL) {
+			return sd;
+		}
 		return update(sd);
 	}
 
@@ -145,6 +172,7 @@ public class SessiondataDao {
 				for (Sessiondata sData : l) {
 					sData = em.find(Sessiondata.class, sData.getId());
 					em.remove(sData);
+					cache.invalidate(sData.getSessionId());
 				}
 			}
 		} catch (Exception err) {
@@ -159,6 +187,7 @@ public class SessiondataDao {
 			em.persist(sd);
 		} else {
 			sd = em.merge(sd);
+			cache.invalidate(sd.getSessionId());
 		}
 		return sd;
 	}
@@ -19,6 +19,7 @@
 package org.apache.openmeetings.db.dao.user;
 
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 
 import java.util.Collection;
 import java.util.Date;
@@ -30,6 +31,7 @@ import javax.persistence.PersistenceContext;
 import org.apache.openmeetings.db.dao.IGroupAdminDataProviderDao;
 import org.apache.openmeetings.db.entity.user.Group;
 import org.apache.openmeetings.db.util.DaoHelper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,6 +41,8 @@ public class GroupDao implements IGroupAdminDataProviderDao<Group> {
 	private static final String[] searchFields = {"name"};
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired
+	private UserDao userDao;
 
 	@Override
 	public Group get(Long id) {
@@ -67,16 +71,23 @@ public class GroupDao implements IGroupAdminDataProviderDao<Group> {
 				.getResultList();
 	}
 
+	public List<Group> getAfter(long id, int count) {
+		return em.createNamedQuery("getNondeletedGroupsAfter", Group.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public List<Group> get(String search, long start, long count, String sort) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("Group", "g", search, true, false, sort, searchFields), Group.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("Group", "g", search, true, false, sort, searchFields), Group.class), search)
 				, start, count).getResultList();
 	}
 
 	@Override
 	public List<Group> adminGet(String search, Long adminId, long start, long count, String order) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.group)", "g", null, search, true, true, false
-				, "gu.user.id = :adminId AND gu.moderator = true", order, searchFields), Group.class)
+		return setLimits(setSearch(em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.group)", "g", null, search, true, true, false
+				, "gu.user.id = :adminId AND gu.moderator = true", order, searchFields), Group.class), search)
 					.setParameter("adminId", adminId)
 				, start, count).getResultList();
 	}
@@ -88,14 +99,14 @@ public class GroupDao implements IGroupAdminDataProviderDao<Group> {
 
 	@Override
 	public long count(String search) {
-		return em.createQuery(DaoHelper.getSearchQuery("Group", "o", search, true, true, null, searchFields), Long.class)
+		return setSearch(em.createQuery(DaoHelper.getSearchQuery("Group", "o", search, true, true, null, searchFields), Long.class), search)
 				.getSingleResult();
 	}
 
 	@Override
 	public long adminCount(String search, Long adminId) {
-		return em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.group)", "g", null, search, true, true, true
-				, "gu.user.id = :adminId AND gu.moderator = true", null, searchFields), Long.class)
+		return setSearch(em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.group)", "g", null, search, true, true, true
+				, "gu.user.id = :adminId AND gu.moderator = true", null, searchFields), Long.class), search)
 				.setParameter("adminId", adminId)
 				.getSingleResult();
 	}
@@ -135,5 +146,6 @@ public class GroupDao implements IGroupAdminDataProviderDao<Group> {
 			g.setUpdatedby(userId);
 		}
 		em.merge(g);
+		userDao.invalidateRights(null);
 	}
 }
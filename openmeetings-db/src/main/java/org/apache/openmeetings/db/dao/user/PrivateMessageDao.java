@@ -79,6 +79,13 @@ public class PrivateMessageDao implements IDataProviderDao<PrivateMessage> {
 				, first, count).getResultList();
 	}
 
+	public List<PrivateMessage> getAfter(long id, int count) {
+		return em.createNamedQuery("getPrivateMessagesAfter", PrivateMessage.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public PrivateMessage get(Long id) {
 		List<PrivateMessage> list = em.createNamedQuery("getPrivateMessageById", PrivateMessage.class)
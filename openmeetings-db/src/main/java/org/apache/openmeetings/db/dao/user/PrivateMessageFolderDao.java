@@ -80,6 +80,13 @@ public class PrivateMessageFolderDao implements IDataProviderDao<PrivateMessageF
 				.getResultList();
 	}
 
+	public List<PrivateMessageFolder> getAfter(long id, int count) {
+		return em.createQuery("SELECT c FROM PrivateMessageFolder c WHERE c.id > :id ORDER BY c.id", PrivateMessageFolder.class)
+				.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public PrivateMessageFolder update(PrivateMessageFolder folder, Long userId) {
 		if (folder.getId() == null) {
@@ -22,6 +22,7 @@ import static java.util.UUID.randomUUID;
 import static org.apache.openmeetings.db.util.DaoHelper.fillLazy;
 import static org.apache.openmeetings.db.util.DaoHelper.getStringParam;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setSearch;
 import static org.apache.openmeetings.db.util.DaoHelper.single;
 import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
@@ -48,7 +49,9 @@ import javax.persistence.TypedQuery;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.openmeetings.db.dao.IGroupAdminDataProviderDao;
+import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
+import org.apache.openmeetings.db.dao.log.ConferenceLogDao;
 import org.apache.openmeetings.db.entity.user.Address;
 import org.apache.openmeetings.db.entity.user.AsteriskSipUser;
 import org.apache.openmeetings.db.entity.user.User;
@@ -57,6 +60,7 @@ import org.apache.openmeetings.db.entity.user.User.Salutation;
 import org.apache.openmeetings.db.entity.user.User.Type;
 import org.apache.openmeetings.db.util.AuthLevelUtil;
 import org.apache.openmeetings.db.util.DaoHelper;
+import org.apache.openmeetings.db.util.LocalCache;
 import org.apache.openmeetings.util.OmException;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.util.crypt.CryptProvider;
@@ -64,6 +68,7 @@ import org.apache.openmeetings.util.crypt.ICrypt;
 import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -81,9 +86,16 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	private static final String[] searchFields = {"lastname", "firstname", "login", "address.email", "address.town"};
 	public static final String FETCH_GROUP_GROUP = "groupUsers";
 	public static final String FETCH_GROUP_BACKUP = "backupexport";
+	private static final int RIGHTS_CACHE_SIZE = 10000;
+	private static final long RIGHTS_CACHE_TTL = 5 * 60 * 1000L;
+	private final LocalCache<Long, Set<Right>> rightsCache = new LocalCache<>("user-rights", RIGHTS_CACHE_SIZE, RIGHTS_CACHE_TTL);
 
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired
+	private ChatDao chatDao;
+	@Autowired
+	private ConferenceLogDao confLogDao;
 
 	public static Set<Right> getDefaultRights() {
 		Set<Right> rights = new HashSet<>();
@@ -154,8 +166,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	private List<User> get(String search, Long start, Long count, String order, boolean filterContacts, Long currentUserId, boolean filterDeleted) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, false
-				, getAdditionalWhere(filterContacts, currentUserId, params), order, searchFields), User.class);
+		TypedQuery<User> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, false
+				, getAdditionalWhere(filterContacts, currentUserId, params), order, searchFields), User.class), search);
 		setAdditionalParams(setLimits(q, start, count), params);
 		return q.getResultList();
 	}
@@ -163,8 +175,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	//This is AdminDao method
 	public List<User> get(String search, boolean excludeContacts, long first, long count) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", null, search, true, true, false
-				, getAdditionalWhere(excludeContacts, params), null, searchFields), User.class);
+		TypedQuery<User> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("User", "u", null, search, true, true, false
+				, getAdditionalWhere(excludeContacts, params), null, searchFields), User.class), search);
 		setAdditionalParams(setLimits(q, first, count), params);
 		return q.getResultList();
 	}
@@ -184,16 +196,16 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	@Override
 	public List<User> adminGet(String search, Long adminId, long start, long count, String order) {
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, false
-				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), User.class);
+		TypedQuery<User> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, false
+				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), User.class), search);
 		q.setParameter("adminId", adminId);
 		return setLimits(q, start, count).getResultList();
 	}
 
 	private long count(String search, boolean filterContacts, Long currentUserId, boolean filterDeleted) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, true
-				, getAdditionalWhere(filterContacts, currentUserId, params), null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, true
+				, getAdditionalWhere(filterContacts, currentUserId, params), null, searchFields), Long.class), search);
 		setAdditionalParams(q, params);
 		return q.getSingleResult();
 	}
@@ -225,8 +237,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	@Override
 	public long adminCount(String search, Long adminId) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, true
-				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class);
+		TypedQuery<Long> q = setSearch(em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, true
+				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class), search);
 		q.setParameter("adminId", adminId);
 		return q.getSingleResult();
 	}
@@ -242,6 +254,7 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 		} else {
 			u.setUpdated(new Date());
 			u = em.merge(u);
+			invalidateRights(u.getId());
 		}
 		return u;
 	}
@@ -311,13 +324,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	// created here so this action would be executed in Transaction
 	public void purge(User u, Long userId) {
 		if (u != null && u.getId() != null) {
-			em.createNamedQuery("purgeChatUserName")
-				.setParameter("purged", "Purged User")
-				.setParameter("userId", u.getId())
-				.executeUpdate();
-			em.createNamedQuery("clearLogUserIpByUser")
-				.setParameter("userId", u.getId())
-				.executeUpdate();
+			chatDao.purgeName(u.getId(), "Purged User");
+			confLogDao.clearUserIp(u.getId());
 			if (!Strings.isEmpty(u.getAddress().getEmail())) {
 				em.createNamedQuery("purgeMailMessages")
 					.setParameter(PARAM_EMAIL, String.format("%%%s%%", u.getAddress().getEmail()))
@@ -369,6 +377,19 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 				, FETCH_GROUP_BACKUP, FETCH_GROUP_GROUP);
 	}
 
+	/**
+	 * @param id - id of the last user of previous page
+	 * @param count - page size
+	 * @return next page of users (with backup fetch groups) ordered by id
+	 */
+	public List<User> getAfter(long id, int count) {
+		return fillLazy(em
+				, oem -> oem.createNamedQuery("getAllUsersAfter", User.class)
+						.setParameter("id", id)
+						.setMaxResults(count)
+				, FETCH_GROUP_BACKUP, FETCH_GROUP_GROUP);
+	}
+
 	/**
 	 * check for duplicates
 	 *
@@ -600,13 +621,33 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 			return rights;
 		}
 
-		User u = get(id);
-		if (u != null) {
-			return u.getRights();
+		Set<Right> cached = rightsCache.get(id, key -> {
+			User u = get(key);
+			return u == null ? null : Set.copyOf(u.getRights());
+		});
+		if (cached != null) {
+			rights.addAll(cached);
 		}
 		return rights;
 	}
 
+	/**
+	 * Drops cached rights of the user on all cluster members
+	 *
+	 * In case of active transaction rights are dropped once again and other
+	 * members are notified after commit, so rights loaded concurrently with
+	 * the change are not cached
+	 *
+	 * @param id - id of the user, all cached rights are dropped if {@code null}
+	 */
+	public void invalidateRights(Long id) {
+		if (id == null) {
+			rightsCache.invalidateAll();
+		} else {
+			rightsCache.invalidate(id);
+		}
+	}
+
 	/**
 	 * login logic
 	 *
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_TYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_OMTYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_SLIDE;
+
+import java.io.Serializable;
+
+import org.apache.openmeetings.util.NullStringer;
+
+import com.github.openjson.JSONObject;
+
+/**
+ * Immutable record of the object drawn on {@link Whiteboard}
+ *
+ * Attributes required for look-up are extracted once, object is stored in compact
+ * JSON form (this is the only form being serialized) and is parsed only once
+ */
+public class WbObject implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private final String uid;
+	private final String omType;
+	private final String fileType;
+	private final long fileId;
+	private final int slide;
+	private final String json;
+	private transient volatile JSONObject parsed;
+
+	public WbObject(String uid, JSONObject obj) {
+		this.uid = uid;
+		this.omType = obj.optString(ATTR_OMTYPE, null);
+		this.fileType = obj.optString(ATTR_FILE_TYPE, null);
+		this.fileId = obj.optLong(ATTR_FILE_ID, -1);
+		this.slide = obj.optInt(ATTR_SLIDE, -1);
+		this.json = obj.toString(new NullStringer());
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public String getOmType() {
+		return omType;
+	}
+
+	public String getFileType() {
+		return fileType;
+	}
+
+	public long getFileId() {
+		return fileId;
+	}
+
+	public boolean isFile() {
+		return fileId > 0;
+	}
+
+	public int getSlide() {
+		return slide;
+	}
+
+	/**
+	 * @return compact JSON representation of the object
+	 */
+	public String getJson() {
+		return json;
+	}
+
+	/**
+	 * @return shared parsed object, should be used for read-only access
+	 */
+	public JSONObject get() {
+		JSONObject o = parsed;
+		if (o == null) {
+			o = new JSONObject(json);
+			parsed = o;
+		}
+		return o;
+	}
+
+	/**
+	 * @return deep copy of the object, can be safely modified
+	 */
+	public JSONObject copy() {
+		return new JSONObject(json);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Storage of {@link Whiteboard} objects, keeps insertion order
+ * and maintains indexes by slide and file id
+ */
+public class WbObjectStore implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private final Map<String, WbObject> items = new LinkedHashMap<>();
+	private final Map<Integer, Set<String>> bySlide = new HashMap<>();
+	private final Map<Long, Set<String>> byFile = new HashMap<>();
+
+	public synchronized WbObject put(WbObject o) {
+		WbObject prev = items.put(o.getUid(), o);
+		if (prev != null) {
+			unindex(prev);
+		}
+		bySlide.computeIfAbsent(o.getSlide(), k -> new LinkedHashSet<>()).add(o.getUid());
+		if (o.isFile()) {
+			byFile.computeIfAbsent(o.getFileId(), k -> new LinkedHashSet<>()).add(o.getUid());
+		}
+		return prev;
+	}
+
+	public synchronized WbObject get(String uid) {
+		return items.get(uid);
+	}
+
+	public synchronized boolean contains(String uid) {
+		return items.containsKey(uid);
+	}
+
+	public synchronized WbObject remove(String uid) {
+		WbObject o = items.remove(uid);
+		if (o != null) {
+			unindex(o);
+		}
+		return o;
+	}
+
+	private static <K> void unindex(Map<K, Set<String>> index, K key, String uid) {
+		Set<String> uids = index.get(key);
+		if (uids != null) {
+			uids.remove(uid);
+			if (uids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private void unindex(WbObject o) {
+		unindex(bySlide, o.getSlide(), o.getUid());
+		if (o.isFile()) {
+			unindex(byFile, o.getFileId(), o.getUid());
+		}
+	}
+
+	/**
+	 * Removes all objects of the slide matching the filter
+	 *
+	 * @param slide - slide to be cleaned
+	 * @param filter - additional filter, can be {@code null}
+	 * @return removed objects
+	 */
+	public synchronized List<WbObject> removeSlide(int slide, Predicate<WbObject> filter) {
+		Set<String> uids = bySlide.get(slide);
+		if (uids == null) {
+			return Collections.emptyList();
+		}
+		List<WbObject> removed = new ArrayList<>();
+		for (String uid : new ArrayList<>(uids)) {
+			WbObject o = items.get(uid);
+			if (filter == null || filter.test(o)) {
+				removed.add(remove(uid));
+			}
+		}
+		return removed;
+	}
+
+	public synchronized List<WbObject> getBySlide(int slide) {
+		return get(bySlide.get(slide));
+	}
+
+	public synchronized List<WbObject> getByFileId(long fileId) {
+		return get(byFile.get(fileId));
+	}
+
+	private List<WbObject> get(Set<String> uids) {
+		if (uids == null) {
+			return Collections.emptyList();
+		}
+		List<WbObject> res = new ArrayList<>(uids.size());
+		for (String uid : uids) {
+			res.add(items.get(uid));
+		}
+		return res;
+	}
+
+	/**
+	 * @return snapshot of all objects in insertion order, objects are immutable,
+	 *  so snapshot can be iterated without locking
+	 */
+	public synchronized List<WbObject> snapshot() {
+		return new ArrayList<>(items.values());
+	}
+
+	public synchronized void clear() {
+		items.clear();
+		bySlide.clear();
+		byFile.clear();
+	}
+
+	public synchronized int size() {
+		return items.size();
+	}
+
+	public synchronized boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+	}
+}
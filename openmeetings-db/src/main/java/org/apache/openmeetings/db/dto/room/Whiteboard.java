@@ -26,17 +26,12 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.util.NullStringer;
-import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,7 +62,7 @@ public class Whiteboard implements Serializable {
 	private ZoomMode zoomMode = ZoomMode.PAGE_WIDTH;
 	private int width = DEFAULT_WIDTH;
 	private int height = DEFAULT_HEIGHT;
-	private Map<String, String> roomItems = Collections.synchronizedMap(new LinkedHashMap<>());
+	private WbObjectStore roomItems = new WbObjectStore();
 	private Date created = new Date();
 	private int slide = 0;
 	private String name;
@@ -120,43 +115,56 @@ public class Whiteboard implements Serializable {
 	}
 
 	public Whiteboard put(String uid, JSONObject obj) {
-		roomItems.put(uid, obj.toString(new NullStringer()));
+		return put(new WbObject(uid, obj));
+	}
+
+	public Whiteboard put(WbObject obj) {
+		roomItems.put(obj);
 		return this;
 	}
 
 	public JSONObject get(String uid) {
-		String obj = roomItems.get(uid);
-		return obj == null ? null : new JSONObject(obj);
+		WbObject obj = roomItems.get(uid);
+		return obj == null ? null : obj.copy();
 	}
 
 	public boolean contains(String uid) {
-		return roomItems.containsKey(uid);
+		return roomItems.contains(uid);
 	}
 
 	public JSONArray clearSlide(int slide) {
 		JSONArray arr = new JSONArray();
-		roomItems.entrySet().removeIf(e -> {
-				JSONObject o = new JSONObject(e.getValue());
-				boolean match = !FileItem.Type.PRESENTATION.name().equals(o.optString(ATTR_FILE_TYPE)) && o.optInt(ATTR_SLIDE, -1) == slide;
-				if (match) {
-					arr.put(e);
-				}
-				return match;
-			});
+		for (WbObject o : roomItems.removeSlide(slide, wo -> !FileItem.Type.PRESENTATION.name().equals(wo.getFileType()))) {
+			arr.put(o.get());
+		}
 		return arr;
 	}
 
+	/**
+	 * @return copies of all objects, can be safely modified
+	 */
 	public List<JSONObject> list() {
 		List<JSONObject> items = new LinkedList<>();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			items.add(new JSONObject(e.getValue()));
+		for (WbObject o : roomItems.snapshot()) {
+			items.add(o.copy());
 		}
 		return items;
 	}
 
+	/**
+	 * @return snapshot of all objects, should be used for read-only access
+	 */
+	public List<WbObject> objects() {
+		return roomItems.snapshot();
+	}
+
+	public List<WbObject> objectsByFileId(long fileId) {
+		return roomItems.getByFileId(fileId);
+	}
+
 	public JSONObject remove(Object oid) {
-		final String obj = roomItems.remove(oid);
-		return Strings.isEmpty(obj) ? null : new JSONObject(obj);
+		final WbObject obj = oid == null ? null : roomItems.remove(oid.toString());
+		return obj == null ? null : obj.copy();
 	}
 
 	public boolean isEmpty() {
@@ -211,8 +219,8 @@ public class Whiteboard implements Serializable {
 		json.remove("id"); //filtering
 		json.remove("empty"); //filtering
 		JSONObject items = new JSONObject();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			JSONObject o = new JSONObject(e.getValue());
+		for (WbObject wo : roomItems.snapshot()) {
+			JSONObject o = wo.copy();
 			//filtering
 			if ("Clipart".equals(o.opt(ATTR_OMTYPE))) {
 				if (o.has(PARAM__SRC)) {
@@ -222,7 +230,7 @@ public class Whiteboard implements Serializable {
 				o.remove(PARAM_SRC);
 			}
 			o.remove(PARAM__SRC);
-			items.put(e.getKey(), o);
+			items.put(wo.getUid(), o);
 		}
 		json.put(ITEMS_KEY, items);
 		return json;
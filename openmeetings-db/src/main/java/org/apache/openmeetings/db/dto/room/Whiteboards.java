@@ -32,6 +32,7 @@ public class Whiteboards implements Serializable {
 	private Map<Long, Whiteboard> whiteboards = new ConcurrentHashMap<>();
 	private AtomicLong whiteboardId = new AtomicLong(0);
 	private AtomicLong activeWb = new AtomicLong(0);
+	private AtomicLong version = new AtomicLong(0);
 
 	public Whiteboards() {
 		//def constructor
@@ -73,6 +74,7 @@ public class Whiteboards implements Serializable {
 
 	public void update(Whiteboard wb) {
 		whiteboards.put(wb.getId(), wb);
+		whiteboardId.accumulateAndGet(wb.getId() + 1, Math::max);
 	}
 
 	public String getUid() {
@@ -86,4 +88,19 @@ public class Whiteboards implements Serializable {
 	public void setActiveWb(long wbId) {
 		activeWb.set(wbId);
 	}
+
+	/**
+	 * @return number of changes applied to cluster-wide copy of this object
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	public void setVersion(long version) {
+		this.version.set(version);
+	}
+
+	public long incrementVersion() {
+		return version.incrementAndGet();
+	}
 }
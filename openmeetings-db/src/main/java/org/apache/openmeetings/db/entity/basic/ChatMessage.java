@@ -29,6 +29,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
@@ -53,6 +54,7 @@ import org.apache.openmeetings.db.entity.user.User;
 @Entity
 @NamedQuery(name = "getChatMessageById", query = "SELECT c FROM ChatMessage c WHERE c.id = :id")
 @NamedQuery(name = "getChatMessages", query = "SELECT c FROM ChatMessage c ORDER BY c.id")
+@NamedQuery(name = "getChatMessagesAfter", query = "SELECT c FROM ChatMessage c WHERE c.id > :id ORDER BY c.id")
 @NamedQuery(name = "getGlobalChatMessages", query = "SELECT c FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom IS NULL ORDER BY c.sent DESC")
 @NamedQuery(name = "getChatMessagesByRoom", query = "SELECT c FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom.id = :roomId"
 		+ " AND (true = :all OR (false = :all AND c.needModeration = false)) ORDER BY c.sent DESC")
@@ -69,7 +71,11 @@ import org.apache.openmeetings.db.entity.user.User;
 @NamedQuery(name = "deleteChatRoom", query = "DELETE FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom.id = :roomId")
 @NamedQuery(name = "deleteChatUser", query = "DELETE FROM ChatMessage c WHERE c.toRoom IS NULL AND c.toUser.id = :userId")
 @NamedQuery(name = "purgeChatUserName", query = "UPDATE ChatMessage c SET c.fromName = :purged WHERE c.fromUser.id = :userId")
-@Table(name = "chat")
+@Table(name = "chat", indexes = {
+		@Index(name = "chat_room_sent_idx", columnList = "to_room_id, to_user_id, sent")
+		, @Index(name = "chat_to_user_sent_idx", columnList = "to_user_id, sent")
+		, @Index(name = "chat_from_user_sent_idx", columnList = "from_user_id, sent")
+})
 @XmlRootElement(name = CHAT_NODE)
 @XmlAccessorType(XmlAccessType.FIELD)
 public class ChatMessage implements IDataProviderEntity {
@@ -132,6 +138,11 @@ public class ChatMessage implements IDataProviderEntity {
 	@XmlElement(name = "status", required = false)
 	private Status status;
 
+	// key of the message assigned before it is persisted
+	@Column(name = "uid")
+	@XmlElement(name = "uid", required = false)
+	private String uid;
+
 	@Override
 	public Long getId() {
 		return id;
@@ -205,4 +216,12 @@ public class ChatMessage implements IDataProviderEntity {
 	public void setStatus(Status status) {
 		this.status = status;
 	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public void setUid(String uid) {
+		this.uid = uid;
+	}
 }
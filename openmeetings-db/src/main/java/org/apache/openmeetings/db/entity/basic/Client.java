@@ -22,6 +22,7 @@ import static java.util.UUID.randomUUID;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -65,6 +66,9 @@ public class Client implements IDataProviderEntity, IWsClient {
 	private final int pageId;
 	private User user;
 	private Room room;
+	// cluster copy holds references only, entities are loaded on first access, see ClientSerializer
+	private ClientSerializer.Ref userRef;
+	private ClientSerializer.Ref roomRef;
 	private final String uid;
 	private final String sid;
 	private String remoteAddress;
@@ -89,6 +93,16 @@ public class Client implements IDataProviderEntity, IWsClient {
 		sid = randomUUID().toString();
 	}
 
+	// cluster copy, see ClientSerializer
+	Client(String sessionId, int pageId, String uid, String sid, Date connectedSince, String pictureUri) {
+		this.sessionId = sessionId;
+		this.pageId = pageId;
+		this.uid = uid;
+		this.sid = sid;
+		this.connectedSince = connectedSince;
+		this.pictureUri = pictureUri;
+	}
+
 	@Override
 	public String getSessionId() {
 		return sessionId;
@@ -100,16 +114,34 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public User getUser() {
+		if (user == null && userRef != null) {
+			user = ClientSerializer.loadUser(userRef);
+		}
 		return user;
 	}
 
+	ClientSerializer.Ref getUserRef() {
+		User u = user;
+		return u == null ? userRef : new ClientSerializer.Ref(u);
+	}
+
+	void setUserRef(ClientSerializer.Ref ref) {
+		user = null;
+		userRef = ref;
+	}
+
 	public Client updateUser(UserDao dao) {
-		user = dao.get(user.getId());
+		user = dao.get(getUserId());
+		userRef = null;
 		return this;
 	}
 
 	public Long getUserId() {
-		return user == null ? null : user.getId();
+		User u = user;
+		if (u != null) {
+			return u.getId();
+		}
+		return userRef == null ? null : userRef.getId();
 	}
 
 	public boolean sameUserId(Long userId) {
@@ -135,6 +167,18 @@ public class Client implements IDataProviderEntity, IWsClient {
 		streams.clear();
 	}
 
+	Set<Right> getRights() {
+		return rights;
+	}
+
+	Set<Activity> getActivities() {
+		return activities;
+	}
+
+	void addStream(StreamDesc sd) {
+		streams.put(sd.getUid(), sd);
+	}
+
 	public boolean hasRight(Right right) {
 		if (Right.SUPER_MODERATOR == right) {
 			return rights.contains(right);
@@ -270,14 +314,28 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public Room getRoom() {
+		if (room == null && roomRef != null) {
+			room = ClientSerializer.loadRoom(roomRef);
+		}
 		return room;
 	}
 
 	public Client setRoom(Room room) {
 		this.room = room;
+		this.roomRef = null;
 		return this;
 	}
 
+	ClientSerializer.Ref getRoomRef() {
+		Room r = room;
+		return r == null ? roomRef : new ClientSerializer.Ref(r);
+	}
+
+	void setRoomRef(ClientSerializer.Ref ref) {
+		room = null;
+		roomRef = ref;
+	}
+
 	public boolean isCamEnabled() {
 		return cam > -1;
 	}
@@ -340,24 +398,29 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public Long getRoomId() {
-		return room == null ? null : room.getId();
+		Room r = room;
+		if (r != null) {
+			return r.getId();
+		}
+		return roomRef == null ? null : roomRef.getId();
 	}
 
 	private JSONObject addUserJson(JSONObject o) {
 		JSONObject u = new JSONObject();
-		if (user != null) {
+		User usr = getUser();
+		if (usr != null) {
 			JSONObject a = new JSONObject();
-			u.put("id", user.getId())
-				.put("firstName", user.getFirstname())
-				.put("lastName", user.getLastname())
-				.put("displayName", user.getDisplayName())
+			u.put("id", usr.getId())
+				.put("firstName", usr.getFirstname())
+				.put("lastName", usr.getLastname())
+				.put("displayName", usr.getDisplayName())
 				.put("address", a)
 				.put("pictureUri", pictureUri);
-			if (user.getAddress() != null) {
-				if (Strings.isEmpty(user.getFirstname()) && Strings.isEmpty(user.getLastname())) {
-					a.put("email", user.getAddress().getEmail());
+			if (usr.getAddress() != null) {
+				if (Strings.isEmpty(usr.getFirstname()) && Strings.isEmpty(usr.getLastname())) {
+					a.put("email", usr.getAddress().getEmail());
 				}
-				a.put("country", user.getAddress().getCountry());
+				a.put("country", usr.getAddress().getCountry());
 			}
 		}
 		return o.put("user", u);
@@ -384,8 +447,15 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public void merge(Client c) {
-		user = c.user;
-		room = c.room;
+		// already loaded entities are kept in case the copy references the same version
+		if (c.userRef == null || !c.userRef.matches(user)) {
+			user = c.user;
+			userRef = c.userRef;
+		}
+		if (c.roomRef == null || !c.roomRef.matches(room)) {
+			room = c.room;
+			roomRef = c.roomRef;
+		}
 		synchronized (rights) {
 			Set<Right> rr = new HashSet<>(c.rights);
 			rights.clear();
@@ -461,6 +531,15 @@ public class Client implements IDataProviderEntity, IWsClient {
 			sactivities.addAll(sd.sactivities);
 		}
 
+		// cluster copy, see ClientSerializer
+		StreamDesc(String uuid, StreamType type, int width, int height, Collection<Activity> activities) {
+			this.uuid = uuid;
+			this.type = type;
+			this.swidth = width;
+			this.sheight = height;
+			sactivities.addAll(activities);
+		}
+
 		public StreamDesc(StreamType type, Activity...activities) {
 			this.uuid = randomUUID().toString();
 			this.type = type;
@@ -473,7 +552,8 @@ public class Client implements IDataProviderEntity, IWsClient {
 				this.swidth = 800;
 				this.sheight = 600;
 			} else if (StreamType.WEBCAM == type) {
-				boolean interview = room != null && Room.Type.INTERVIEW == room.getType();
+				Room r = getRoom();
+				boolean interview = r != null && Room.Type.INTERVIEW == r.getType();
 				this.swidth = interview ? 320 : width;
 				this.sheight = interview ? 260 : height;
 			}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.apache.openmeetings.IApplication;
+import org.apache.openmeetings.db.dao.room.RoomDao;
+import org.apache.openmeetings.db.dao.user.UserDao;
+import org.apache.openmeetings.db.entity.HistoricalEntity;
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.StreamDesc;
+import org.apache.openmeetings.db.entity.basic.Client.StreamType;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.LocalCache;
+import org.apache.wicket.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Compact cluster representation of {@link Client}
+ *
+ * Only ids and modification time of {@link User} and {@link Room} are being sent,
+ * entities are restored on first access (outside of deserialization) from the local
+ * cache, and re-loaded from DB in case they were modified
+ */
+public class ClientSerializer implements StreamSerializer<Client> {
+	private static final Logger log = LoggerFactory.getLogger(ClientSerializer.class);
+	private static final int TYPE_ID = 1001;
+	private static final byte VERSION = 1;
+	private static final long CACHE_TTL = 5 * 60 * 1000L;
+	private static final LocalCache<Long, User> users = new LocalCache<>("client-users", 10000, CACHE_TTL);
+	private static final LocalCache<Long, Room> rooms = new LocalCache<>("client-rooms", 1000, CACHE_TTL);
+
+	@Override
+	public int getTypeId() {
+		return TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, Client c) throws IOException {
+		out.writeByte(VERSION);
+		out.writeUTF(c.getSessionId());
+		out.writeInt(c.getPageId());
+		out.writeUTF(c.getUid());
+		out.writeUTF(c.getSid());
+		out.writeLong(c.getConnectedSince().getTime());
+		out.writeUTF(c.getPictureUri());
+		out.writeUTF(c.getRemoteAddress());
+		out.writeUTF(c.getServerId());
+		writeRef(out, c.getUserRef());
+		writeRef(out, c.getRoomRef());
+		writeEnums(out, c.getRights());
+		writeEnums(out, c.getActivities());
+		List<StreamDesc> streams = c.getStreams();
+		out.writeInt(streams.size());
+		for (StreamDesc sd : streams) {
+			out.writeUTF(sd.getUid());
+			out.writeByte(sd.getType().ordinal());
+			out.writeInt(sd.getWidth());
+			out.writeInt(sd.getHeight());
+			writeEnums(out, sd.getActivities());
+		}
+		out.writeInt(c.getCam());
+		out.writeInt(c.getMic());
+		out.writeInt(c.getWidth());
+		out.writeInt(c.getHeight());
+	}
+
+	@Override
+	public Client read(ObjectDataInput in) throws IOException {
+		byte ver = in.readByte();
+		if (ver != VERSION) {
+			throw new IOException("Unsupported version of Client: " + ver);
+		}
+		Client c = new Client(in.readUTF(), in.readInt(), in.readUTF(), in.readUTF(), new Date(in.readLong()), in.readUTF());
+		c.setRemoteAddress(in.readUTF());
+		c.setServerId(in.readUTF());
+		c.setUserRef(readRef(in));
+		c.setRoomRef(readRef(in));
+		c.getRights().addAll(readEnums(in, Right.values()));
+		c.getActivities().addAll(readEnums(in, Activity.values()));
+		StreamType[] types = StreamType.values();
+		for (int i = in.readInt(); i > 0; --i) {
+			c.addStream(c.new StreamDesc(in.readUTF(), types[in.readByte()], in.readInt(), in.readInt(), readEnums(in, Activity.values())));
+		}
+		c.setCam(in.readInt())
+			.setMic(in.readInt())
+			.setWidth(in.readInt())
+			.setHeight(in.readInt());
+		return c;
+	}
+
+	private static void writeRef(ObjectDataOutput out, Ref ref) throws IOException {
+		out.writeBoolean(ref != null);
+		if (ref != null) {
+			out.writeLong(ref.id);
+			out.writeLong(ref.updated);
+		}
+	}
+
+	private static Ref readRef(ObjectDataInput in) throws IOException {
+		return in.readBoolean() ? new Ref(in.readLong(), in.readLong()) : null;
+	}
+
+	static User loadUser(Ref ref) {
+		return load(ref, users, (app, id) -> app.getBean(UserDao.class).get(id));
+	}
+
+	static Room loadRoom(Ref ref) {
+		return load(ref, rooms, (app, id) -> app.getBean(RoomDao.class).get(id));
+	}
+
+	private static <T extends HistoricalEntity> T load(Ref ref, LocalCache<Long, T> cache
+			, BiFunction<IApplication, Long, T> loader)
+	{
+		T e = cache.get(ref.id);
+		if (!ref.matches(e)) {
+			IApplication app = (IApplication)Application.get(getWicketApplicationName());
+			if (app == null) {
+				log.warn("Application is not available, unable to load entity with id {}", ref.id);
+				return null;
+			}
+			e = loader.apply(app, ref.id);
+			if (e != null) {
+				cache.put(ref.id, e);
+			}
+		}
+		return e;
+	}
+
+	private static long getUpdated(HistoricalEntity e) {
+		return e.getUpdated() == null ? 0 : e.getUpdated().getTime();
+	}
+
+	private static void writeEnums(ObjectDataOutput out, Collection<? extends Enum<?>> values) throws IOException {
+		out.writeInt(values.size());
+		for (Enum<?> v : values) {
+			out.writeByte(v.ordinal());
+		}
+	}
+
+	private static <T extends Enum<T>> List<T> readEnums(ObjectDataInput in, T[] values) throws IOException {
+		int count = in.readInt();
+		List<T> res = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			res.add(values[in.readByte()]);
+		}
+		return res;
+	}
+
+	@Override
+	public void destroy() {
+		// no-op
+	}
+
+	/**
+	 * Reference to the entity of particular version
+	 */
+	static class Ref implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final long id;
+		private final long updated;
+
+		Ref(HistoricalEntity e) {
+			this(e.getId(), getUpdated(e));
+		}
+
+		Ref(long id, long updated) {
+			this.id = id;
+			this.updated = updated;
+		}
+
+		Long getId() {
+			return id;
+		}
+
+		boolean matches(HistoricalEntity e) {
+			return e != null && e.getId() != null && e.getId() == id && getUpdated(e) == updated;
+		}
+	}
+}
@@ -50,8 +50,11 @@ import org.apache.openmeetings.db.entity.user.User;
 @NamedQuery(name = "forceGetConfigurationByKey", query = "SELECT c FROM Configuration c WHERE c.key LIKE :key")
 @NamedQuery(name = "getConfigurationsByKeys", query = "SELECT c FROM Configuration c "
 		+ "WHERE c.key IN :keys and c.deleted = false")
+@NamedQuery(name = "getConfigurationValues", query = "SELECT c.key, c.value FROM Configuration c WHERE c.deleted = false")
 @NamedQuery(name = "getNondeletedConfiguration", query = "SELECT c FROM Configuration c  "
 		+ "LEFT JOIN FETCH c.user WHERE c.deleted = false ORDER BY c.id ASC")
+@NamedQuery(name = "getNondeletedConfigurationAfter", query = "SELECT c FROM Configuration c "
+		+ "LEFT JOIN FETCH c.user WHERE c.deleted = false AND c.id > :id ORDER BY c.id ASC")
 @NamedQuery(name = "getConfigurationById", query = "SELECT c FROM Configuration c "
 		+ "LEFT JOIN FETCH c.user WHERE c.id = :id and c.deleted = false")
 @NamedQuery(name = "countConfigurations", query = "SELECT COUNT(c) FROM Configuration c WHERE c.deleted = false")
@@ -35,6 +35,9 @@ import org.apache.openmeetings.db.entity.HistoricalEntity;
 @NamedQuery(name = "getMailMessageById", query = "SELECT m FROM MailMessage m WHERE m.id = :id")
 @NamedQuery(name = "getMailMessages", query = "SELECT m FROM MailMessage m ORDER BY m.updated, m.inserted")
 @NamedQuery(name = "getMailMessagesByStatus", query = "SELECT m FROM MailMessage m WHERE m.status = :status ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "getMailMessageIdsByStatus", query = "SELECT m.id FROM MailMessage m WHERE m.status = :status ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "getMailMessagesByIds", query = "SELECT m FROM MailMessage m WHERE m.id IN :ids ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "claimMailMessage", query = "UPDATE MailMessage m SET m.status = :sendingStatus, m.updated = :updated WHERE m.id = :id AND m.status = :noneStatus")
 @NamedQuery(name = "countMailMessages", query = "SELECT COUNT(m) FROM MailMessage m")
 @NamedQuery(name = "resetMailStatusByDate", query = "UPDATE MailMessage m SET m.status = :noneStatus WHERE m.status = :sendingStatus AND m.updated < :date")
 @NamedQuery(name = "resetMailStatusById", query = "UPDATE MailMessage m SET m.errorCount = 0, m.status = :noneStatus WHERE m.id = :id")
@@ -61,10 +61,13 @@ import org.apache.openmeetings.db.entity.user.User;
 @Entity
 @Table(name = "appointment", indexes = {
 		@Index(name = "title_idx", columnList = "title")
+		, @Index(name = "appointment_remind_idx", columnList = "is_reminder_email_send, app_start")
+		, @Index(name = "appointment_remind_claim_idx", columnList = "reminder_claim")
 })
 @NamedQuery(name="getAppointmentById", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.id = :id")
 @NamedQuery(name="getAppointmentByIdAny", query="SELECT a FROM Appointment a WHERE a.id = :id")
 @NamedQuery(name="getAppointments", query="SELECT a FROM Appointment a WHERE a.deleted = false ORDER BY a.id")
+@NamedQuery(name="getAppointmentsAfter", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.id > :id ORDER BY a.id")
 @NamedQuery(name="appointmentsInRange",
 	query="SELECT a FROM Appointment a "
 		+ "WHERE a.deleted = false "
@@ -86,17 +89,17 @@ import org.apache.openmeetings.db.entity.user.User;
 		+ "		OR (a.start < :start AND a.end > :end) "
 		+ "	)"
 	)
-@NamedQuery(name="appointmentsInRangeRemind",
-	query="SELECT a FROM Appointment a "
-		//only ReminderType simple mail is concerned!
-		+ "WHERE a.deleted = false AND a.reminderEmailSend = false"
-		+ " AND (a.reminder <> :none) "
-		+ "	AND ( "
-		+ "		(a.start BETWEEN :start AND :end) "
-		+ "		OR (a.end BETWEEN :start AND :end) "
-		+ "		OR (a.start < :start AND a.end > :end) "
-		+ "	)"
+@NamedQuery(name="skipAppointmentReminders",
+	query="UPDATE Appointment a SET a.reminderEmailSend = true "
+		+ "WHERE a.reminderEmailSend = false AND a.start <= :due "
+		+ "	AND (a.deleted = true OR a.reminder = :none OR a.end < :start)"
+	)
+@NamedQuery(name="claimAppointmentReminders",
+	query="UPDATE Appointment a SET a.reminderEmailSend = true, a.reminderClaim = :claim, a.updated = :updated "
+		+ "WHERE a.reminderEmailSend = false AND a.deleted = false AND a.reminder <> :none "
+		+ "	AND a.start <= :due AND a.end >= :start"
 	)
+@NamedQuery(name="getClaimedAppointmentReminders", query="SELECT a FROM Appointment a WHERE a.reminderClaim = :claim")
 @NamedQuery(name="getAppointmentByRoomId", query="SELECT a FROM Appointment a WHERE a.room.id = :roomId")
 @NamedQuery(name="getAppointmentByOwnerRoomId", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.owner.id = :userId AND a.room.id = :roomId")
 //this query returns duplicates if the user books an appointment with his own user as second meeting-member, swagner 19.02.2012
@@ -276,6 +279,10 @@ public class Appointment extends HistoricalEntity {
 	@XmlTransient
 	private boolean reminderEmailSend;
 
+	@Column(name = "reminder_claim", length = 36)
+	@XmlTransient
+	private String reminderClaim;
+
 	//Calendar Specific fields.
 	@ManyToOne()
 	@JoinColumn(name = "calendar_id", nullable = true)
@@ -467,6 +474,14 @@ public class Appointment extends HistoricalEntity {
 		this.reminderEmailSend = isReminderEmailSend;
 	}
 
+	public String getReminderClaim() {
+		return reminderClaim;
+	}
+
+	public void setReminderClaim(String reminderClaim) {
+		this.reminderClaim = reminderClaim;
+	}
+
 	public OmCalendar getCalendar() {
 		return calendar;
 	}
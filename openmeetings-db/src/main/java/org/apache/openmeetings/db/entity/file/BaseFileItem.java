@@ -75,6 +75,7 @@ import org.apache.openmeetings.util.OmFileHelper;
 		+ " WHERE f.deleted = false AND f.id IN :ids")
 @Table(name = "om_file", indexes = {
 		@Index(name = "file_hash_idx", columnList = "hash", unique = true)
+		, @Index(name = "file_content_hash_idx", columnList = "content_hash")
 })
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 public abstract class BaseFileItem extends HistoricalEntity {
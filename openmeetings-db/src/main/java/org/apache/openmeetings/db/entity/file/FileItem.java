@@ -25,12 +25,14 @@ import javax.persistence.Entity;
 import javax.persistence.NamedQuery;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 import org.apache.openmeetings.db.bind.adapter.LongAdapter;
 
 @Entity
 @NamedQuery(name = "getAllFiles", query = "SELECT f FROM FileItem f ORDER BY f.id")
+@NamedQuery(name = "getAllFilesAfter", query = "SELECT f FROM FileItem f WHERE f.id > :id ORDER BY f.id")
 @NamedQuery(name = "getFilesByRoom", query = "SELECT f FROM FileItem f WHERE f.deleted = false AND f.roomId = :roomId " +
 		"AND f.ownerId IS NULL AND f.parentId IS NULL ORDER BY f.type ASC, f.name ")
 @NamedQuery(name = "getFilesByOwner", query = "SELECT f FROM FileItem f WHERE f.deleted = false AND f.ownerId = :ownerId "
@@ -47,6 +49,11 @@ import org.apache.openmeetings.db.bind.adapter.LongAdapter;
 @NamedQuery(name = "getFileFilteredByGroup", query = "SELECT f FROM FileItem f WHERE f.deleted = false AND f.ownerId IS NULL "
 		+ "AND f.groupId = :groupId AND f.parentId IS NULL AND f.type IN :filter "
 		+ "ORDER BY f.type ASC, f.name")
+@NamedQuery(name = "getFilesByContentHash", query = "SELECT f FROM FileItem f WHERE f.deleted = false "
+		+ "AND f.contentHash = :contentHash AND f.type = :type ORDER BY f.id")
+@NamedQuery(name = "getFileSizesByParents", query = "SELECT f.id, f.type, f.storageSize FROM FileItem f WHERE f.deleted = false "
+		+ "AND f.parentId IN :ids")
+@NamedQuery(name = "getFilesAfter", query = "SELECT f FROM FileItem f WHERE f.deleted = false AND f.id > :id ORDER BY f.id")
 @XmlRootElement(name = FILE_NODE)
 public class FileItem extends BaseFileItem {
 	private static final long serialVersionUID = 1L;
@@ -60,6 +67,14 @@ public class FileItem extends BaseFileItem {
 	@XmlElement(name = "externalId", required = false)
 	private String externalId;
 
+	@Column(name = "content_hash")
+	@XmlElement(name = "contentHash", required = false)
+	private String contentHash;
+
+	@Column(name = "storage_size")
+	@XmlTransient
+	private Long storageSize;
+
 	@Override
 	public Long getId() {
 		return super.getId();
@@ -87,4 +102,26 @@ public class FileItem extends BaseFileItem {
 	public void setExternalId(String externalId) {
 		this.externalId = externalId;
 	}
+
+	/**
+	 * @return SHA-256 of the uploaded binary, used to share converted files between identical uploads
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	/**
+	 * @return number of bytes used by the files of this item on disk (children are not included)
+	 */
+	public long getStorageSize() {
+		return storageSize == null ? 0 : storageSize;
+	}
+
+	public void setStorageSize(long storageSize) {
+		this.storageSize = storageSize;
+	}
 }
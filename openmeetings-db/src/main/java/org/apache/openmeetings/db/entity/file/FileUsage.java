@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.file;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
+
+/**
+ * Number of bytes used by files of the owner, room or group
+ */
+@Entity
+@NamedQuery(name = "getFileUsage", query = "SELECT u FROM FileUsage u WHERE u.scope = :scope AND u.scopeId = :scopeId")
+@NamedQuery(name = "addFileUsage", query = "UPDATE FileUsage u SET u.size = u.size + :delta, u.updated = :updated"
+		+ " WHERE u.scope = :scope AND u.scopeId = :scopeId")
+@NamedQuery(name = "setFileUsage", query = "UPDATE FileUsage u SET u.size = :size, u.updated = :updated"
+		+ " WHERE u.scope = :scope AND u.scopeId = :scopeId")
+@NamedQuery(name = "getAllFileUsage", query = "SELECT u FROM FileUsage u")
+@Table(name = "file_usage", indexes = {
+		@Index(name = "file_usage_scope_idx", columnList = "scope_type, scope_id", unique = true)
+})
+public class FileUsage implements IDataProviderEntity {
+	private static final long serialVersionUID = 1L;
+
+	public enum Scope {
+		OWNER
+		, ROOM
+		, GROUP
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "scope_type", nullable = false)
+	@Enumerated(EnumType.STRING)
+	private Scope scope;
+
+	@Column(name = "scope_id", nullable = false)
+	private Long scopeId;
+
+	@Column(name = "used_bytes", nullable = false)
+	private long size;
+
+	@Column(name = "updated")
+	private Date updated;
+
+	public FileUsage() {
+		//default constructor
+	}
+
+	public FileUsage(Scope scope, Long scopeId, long size) {
+		this.scope = scope;
+		this.scopeId = scopeId;
+		this.size = size;
+		this.updated = new Date();
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Scope getScope() {
+		return scope;
+	}
+
+	public void setScope(Scope scope) {
+		this.scope = scope;
+	}
+
+	public Long getScopeId() {
+		return scopeId;
+	}
+
+	public void setScopeId(Long scopeId) {
+		this.scopeId = scopeId;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	public Date getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(Date updated) {
+		this.updated = updated;
+	}
+}
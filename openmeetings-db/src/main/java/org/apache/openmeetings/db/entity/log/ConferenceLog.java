@@ -27,15 +27,21 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 import org.apache.openmeetings.db.entity.IDataProviderEntity;
 
 @Entity
-@Table(name = "conference_log")
-@NamedQuery(name = "getLogRecentRooms", query = "SELECT c FROM ConferenceLog c "
-	+ "WHERE c.roomId IS NOT NULL AND c.type = :roomEnter and c.userId = :userId ORDER BY c.inserted DESC")
+@Table(name = "conference_log", indexes = {
+		@Index(name = "conf_log_user_type_idx", columnList = "user_id, type, room_id, inserted")
+})
+@NamedQuery(name = "getLogRecentRooms", query = "SELECT r, c.inserted FROM ConferenceLog c, Room r "
+	+ "WHERE r.id = c.roomId AND r.deleted = false AND c.type = :roomEnter AND c.userId = :userId "
+	+ "AND c.inserted = (SELECT MAX(c1.inserted) FROM ConferenceLog c1 "
+	+ "WHERE c1.userId = c.userId AND c1.type = c.type AND c1.roomId = c.roomId) "
+	+ "ORDER BY c.inserted DESC")
 @NamedQuery(name = "clearLogUserIpByUser", query = "UPDATE ConferenceLog c SET c.userip = NULL "
 		+ "WHERE c.userip IS NOT NULL AND c.userId = :userId")
 @NamedQuery(name = "clearLogUserIp", query = "UPDATE ConferenceLog c SET c.userip = NULL "
@@ -85,6 +85,7 @@ import org.apache.openmeetings.db.entity.file.BaseFileItem;
 		+ "ORDER BY r.type ASC, r.inserted")
 @NamedQuery(name = "resetRecordingProcessingStatus", query = "UPDATE Recording r SET r.status = :error WHERE r.status IN (:recording, :converting)")
 @NamedQuery(name = "getRecordingsAll", query = "SELECT r FROM Recording r ORDER BY r.id")
+@NamedQuery(name = "getRecordingsAfter", query = "SELECT r FROM Recording r WHERE r.id > :id ORDER BY r.id")
 @NamedQuery(name = "getRecordingsByRoom", query = "SELECT r FROM Recording r WHERE r.deleted = false AND r.roomId = :roomId "
 		+ "ORDER BY r.type ASC, r.inserted")
 @NamedQuery(name = "getRecordingsByParent", query = "SELECT r FROM Recording r WHERE r.deleted = false AND r.parentId = :parentId "
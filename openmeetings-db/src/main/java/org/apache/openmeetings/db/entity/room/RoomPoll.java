@@ -64,6 +64,7 @@ import org.apache.openmeetings.db.entity.user.User;
 @NamedQuery(name = "getPoll", query = "SELECT rp FROM RoomPoll rp "
 		+ "WHERE rp.room.id = :roomId AND rp.archived = false")
 @NamedQuery(name = "getPollListBackup", query = "SELECT rp FROM RoomPoll rp ORDER BY rp.id")
+@NamedQuery(name = "getPollListBackupAfter", query = "SELECT rp FROM RoomPoll rp WHERE rp.id > :id ORDER BY rp.id")
 @NamedQuery(name = "getArchivedPollList", query = "SELECT rp FROM RoomPoll rp "
 		+ "WHERE rp.room.id = :roomId AND rp.archived = true ORDER BY rp.created DESC")
 @NamedQuery(name = "hasPoll", query = "SELECT COUNT(rp) FROM RoomPoll rp "
@@ -53,6 +53,7 @@ import org.apache.openmeetings.db.entity.HistoricalEntity;
 @NamedQuery(name = "getEnabledOAuthServers", query = "select s from OAuthServer as s where s.enabled = true and s.deleted = false")
 @NamedQuery(name = "getOAuthServerById", query = "select s from OAuthServer as s where s.id = :id")
 @NamedQuery(name = "getAllOAuthServers", query = "SELECT s FROM OAuthServer s WHERE s.deleted = false ORDER BY s.id")
+@NamedQuery(name = "getOAuthServersAfter", query = "SELECT s FROM OAuthServer s WHERE s.deleted = false AND s.id > :id ORDER BY s.id")
 @NamedQuery(name = "countOAuthServers", query = "select count(s) from OAuthServer s WHERE s.deleted = false")
 @XmlRootElement(name = OAUTH_NODE)
 public class OAuthServer extends HistoricalEntity {
@@ -51,6 +51,7 @@ import org.apache.openmeetings.db.entity.room.Room;
 
 @Entity
 @NamedQuery(name = "getPrivateMessages", query = "SELECT c FROM PrivateMessage c ORDER BY c.id")
+@NamedQuery(name = "getPrivateMessagesAfter", query = "SELECT c FROM PrivateMessage c WHERE c.id > :id ORDER BY c.id")
 @NamedQuery(name = "getPrivateMessageById", query = "SELECT c FROM PrivateMessage c WHERE c.id = :id ")
 @NamedQuery(name = "updatePrivateMessagesReadStatus", query = "UPDATE PrivateMessage c SET c.isRead = :isRead WHERE c.id IN (:ids) ")
 @NamedQuery(name = "moveMailsToFolder", query = "UPDATE PrivateMessage c SET c.folderId = :folderId WHERE c.id IN (:ids) ")
@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.db.util;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
@@ -31,6 +32,9 @@ import org.apache.openjpa.persistence.OpenJPAQuery;
 import org.apache.wicket.util.string.Strings;
 
 public class DaoHelper {
+	private static final String SEARCH_PARAM = "search";
+	// backslash is not used since it is an escape character in string literals of some DBs
+	public static final char LIKE_ESCAPE = '!';
 	public static final UnsupportedOperationException UNSUPPORTED = new UnsupportedOperationException("Should not be used");
 
 	private DaoHelper() {}
@@ -74,39 +78,77 @@ public class DaoHelper {
 		return appendSort(sb, alias, sort).toString();
 	}
 
-	public static StringBuilder appendWhereClause(StringBuilder sb, String search, String alias, String... fields) {
-		if (!Strings.isEmpty(search) && fields != null) {
-			boolean notEmpty = false;
-			StringBuilder inSb = new StringBuilder();
-			String[] searchItems = search.replace("\'", "").replace("\"", "").split(" ");
-			for (int i = 0; i < searchItems.length; ++i) {
-				if (searchItems[i].isEmpty()) {
-					continue;
-				}
-				if (i == 0) {
-					notEmpty = true;
-					inSb.append(" (");
-				} else {
-					inSb.append(" OR ");
+	private static List<String> getSearchTerms(String search) {
+		List<String> terms = new ArrayList<>();
+		if (!Strings.isEmpty(search)) {
+			for (String term : search.split(" ")) {
+				if (!term.isEmpty()) {
+					terms.add(StringUtils.lowerCase(term));
 				}
-				StringBuilder placeholder = new StringBuilder();
-				placeholder.append("%").append(StringUtils.lowerCase(searchItems[i])).append("%");
-
-				inSb.append("(");
-				for (int j = 0; j < fields.length; ++j) {
-					if (j != 0) {
-						inSb.append(" OR ");
-					}
-					inSb.append("lower(").append(alias).append(".").append(fields[j]).append(") LIKE '").append(placeholder).append("' ");
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Appends search condition, every search term is being passed as query parameter
+	 * and matched as substring of the field, so the text of the query only depends on
+	 * the number of search terms, parameters should be set with {@link #setSearch(TypedQuery, String)}
+	 *
+	 * Substring match of {@code lower(field)} can't use indexes of the field, the
+	 * search is a scan of the filtered rows
+	 */
+	public static StringBuilder appendWhereClause(StringBuilder sb, String search, String alias, String... fields) {
+		List<String> terms = getSearchTerms(search);
+		if (terms.isEmpty() || fields == null || fields.length == 0) {
+			return sb;
+		}
+		sb.append(" AND (");
+		for (int i = 0; i < terms.size(); ++i) {
+			if (i != 0) {
+				sb.append(" OR ");
+			}
+			sb.append("(");
+			for (int j = 0; j < fields.length; ++j) {
+				if (j != 0) {
+					sb.append(" OR ");
 				}
-				inSb.append(")");
+				sb.append("lower(").append(alias).append(".").append(fields[j]).append(") LIKE :").append(SEARCH_PARAM).append(i)
+					.append(" ESCAPE '").append(LIKE_ESCAPE).append("'");
 			}
-			if (notEmpty) {
-				inSb.append(") ");
-				sb.append(" AND").append(inSb);
+			sb.append(")");
+		}
+		return sb.append(") ");
+	}
+
+	/**
+	 * Sets parameters of the search condition added by {@link #appendWhereClause(StringBuilder, String, String, String...)}
+	 *
+	 * @param q - the query
+	 * @param search - the search string
+	 * @return the query
+	 */
+	public static <T> TypedQuery<T> setSearch(TypedQuery<T> q, String search) {
+		List<String> terms = getSearchTerms(search);
+		for (int i = 0; i < terms.size(); ++i) {
+			q.setParameter(SEARCH_PARAM + i, "%" + escapeLike(terms.get(i)) + "%");
+		}
+		return q;
+	}
+
+	/**
+	 * @param term - the text to be matched literally
+	 * @return the text with LIKE wildcards escaped using {@link #LIKE_ESCAPE}
+	 */
+	public static String escapeLike(String term) {
+		StringBuilder sb = new StringBuilder(term.length());
+		for (char c : term.toCharArray()) {
+			if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+				sb.append(LIKE_ESCAPE);
 			}
+			sb.append(c);
 		}
-		return sb;
+		return sb.toString();
 	}
 
 	public static StringBuilder appendSort(StringBuilder sb, String alias, String sort) {
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.openmeetings.IApplication;
+import org.apache.openmeetings.util.ws.IClusterWsMessage;
+import org.apache.wicket.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded in-memory cache with time-to-live
+ *
+ * Invalidation is being published to other cluster members, so every node drops
+ * the changed entry
+ *
+ * @param <K> - type of the key
+ * @param <V> - type of the value
+ */
+public class LocalCache<K extends Serializable, V> {
+	private static final Logger log = LoggerFactory.getLogger(LocalCache.class);
+	private static final Map<String, LocalCache<?, ?>> caches = new ConcurrentHashMap<>();
+	private final String name;
+	private final long ttl;
+	private final Map<K, CacheEntry<V>> map;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private long generation; // incremented on every removal, guarded by this
+
+	private static class CacheEntry<V> {
+		private final V value;
+		private final long expires;
+
+		CacheEntry(V value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * @param name - unique name of the cache
+	 * @param maxSize - max number of entries, least recently used entry is removed
+	 * @param ttl - time-to-live of the entry in milliseconds
+	 */
+	public LocalCache(String name, final int maxSize, long ttl) {
+		this.name = name;
+		this.ttl = ttl;
+		this.map = new LinkedHashMap<>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+				return size() > maxSize;
+			}
+		};
+		caches.put(name, this);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized V get(K key) {
+		CacheEntry<V> e = map.get(key);
+		if (e != null && e.expires < System.currentTimeMillis()) {
+			map.remove(key);
+			e = null;
+		}
+		if (e == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return e.value;
+	}
+
+	/**
+	 * Get cached value or load and cache it
+	 *
+	 * @param key - the key
+	 * @param loader - function to load the value, {@code null} values are not cached
+	 * @return cached or loaded value
+	 *
+	 * Loaded value is not cached in case the cache was invalidated during the load,
+	 * since the value might be read before the invalidating commit
+	 */
+	public V get(K key, Function<K, V> loader) {
+		long gen;
+		synchronized (this) {
+			V v = get(key);
+			if (v != null) {
+				return v;
+			}
+			gen = generation;
+		}
+		V v = loader.apply(key);
+		if (v != null) {
+			synchronized (this) {
+				if (gen == generation) {
+					put(key, v);
+				}
+			}
+		}
+		return v;
+	}
+
+	public synchronized void put(K key, V value) {
+		map.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttl));
+	}
+
+	private synchronized void remove(K key) {
+		generation++;
+		if (key == null) {
+			map.clear();
+		} else {
+			map.remove(key);
+		}
+	}
+
+	/**
+	 * Removes the entry on all cluster members
+	 *
+	 * In case transaction is active the entry is removed locally once again and
+	 * invalidation is published after the transaction is completed, so values
+	 * re-loaded before the commit will not survive
+	 *
+	 * @param key - the key, all entries will be removed in case of {@code null}
+	 */
+	public void invalidate(K key) {
+		remove(key);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					remove(key);
+					if (STATUS_COMMITTED == status) {
+						publish(key);
+					}
+				}
+			});
+		} else {
+			publish(key);
+		}
+	}
+
+	private void publish(K key) {
+		IApplication app = (IApplication)Application.get(getWicketApplicationName());
+		if (app != null) {
+			app.publishWsTopic(new Invalidate(name, key));
+		}
+	}
+
+	public void invalidateAll() {
+		invalidate(null);
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Process invalidation received from other cluster member
+	 *
+	 * @param msg - cluster message
+	 * @return {@code true} if message was processed
+	 */
+	@SuppressWarnings("unchecked")
+	public static boolean onMessage(IClusterWsMessage msg) {
+		if (!(msg instanceof Invalidate)) {
+			return false;
+		}
+		Invalidate m = (Invalidate)msg;
+		LocalCache<Serializable, ?> cache = (LocalCache<Serializable, ?>)caches.get(m.name);
+		if (cache != null) {
+			log.trace("Invalidating {} of {}", m.key, m.name);
+			cache.remove(m.key);
+		}
+		return true;
+	}
+
+	private static class Invalidate implements IClusterWsMessage {
+		private static final long serialVersionUID = 1L;
+		private final String name;
+		private final Serializable key;
+
+		Invalidate(String name, Serializable key) {
+			this.name = name;
+			this.key = key;
+		}
+	}
+}
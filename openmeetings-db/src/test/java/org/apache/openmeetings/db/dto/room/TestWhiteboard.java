@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_TYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_SLIDE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ITEMS_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+public class TestWhiteboard {
+	private static JSONObject obj(String uid, int slide) {
+		return new JSONObject().put("uid", uid).put(ATTR_SLIDE, slide);
+	}
+
+	@Test
+	public void testPutGet() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("a", obj("a", 0));
+		JSONObject o = wb.get("a");
+		o.put("changed", true);
+		assertFalse(wb.get("a").has("changed"), "Stored object should not be modified");
+		assertTrue(wb.contains("a"), "Object should be stored");
+		assertEquals("a", wb.remove("a").getString("uid"), "Removed object should be returned");
+		assertNull(wb.get("a"), "Object should be removed");
+		assertTrue(wb.isEmpty(), "Whiteboard should be empty");
+	}
+
+	@Test
+	public void testClearSlide() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("a", obj("a", 0));
+		wb.put("b", obj("b", 1));
+		wb.put("c", obj("c", 1));
+		wb.put("p", obj("p", 1).put(ATTR_FILE_TYPE, FileItem.Type.PRESENTATION.name()).put(ATTR_FILE_ID, 5L));
+		JSONArray arr = wb.clearSlide(1);
+		assertEquals(2, arr.length(), "Only non-presentation objects should be removed");
+		assertEquals("b", arr.getJSONObject(0).getString("uid"), "Order should be preserved");
+		assertEquals(2, wb.objects().size(), "Two objects should remain");
+		assertEquals(1, wb.objectsByFileId(5L).size(), "Presentation should be found by file");
+		// modified object should be re-indexed
+		wb.put("a", obj("a", 1));
+		assertEquals(1, wb.clearSlide(1).length(), "Modified object should be removed");
+		assertTrue(wb.clearSlide(0).isEmpty(), "Nothing should be found");
+	}
+
+	@Test
+	public void testToJson() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("a", obj("a", 0));
+		wb.put("b", obj("b", 1));
+		JSONObject items = wb.toJson().getJSONObject(ITEMS_KEY);
+		assertEquals(2, items.length(), "All objects should be saved");
+		assertEquals(1, items.getJSONObject("b").getInt(ATTR_SLIDE), "Object should be saved");
+	}
+}
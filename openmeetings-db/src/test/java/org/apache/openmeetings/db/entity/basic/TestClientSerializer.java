@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.StreamDesc;
+import org.apache.openmeetings.db.entity.basic.Client.StreamType;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+
+public class TestClientSerializer {
+	private InternalSerializationService ss;
+
+	@BeforeEach
+	public void setUp() {
+		SerializationConfig cfg = new SerializationConfig()
+				.addSerializerConfig(new SerializerConfig()
+						.setImplementation(new ClientSerializer())
+						.setTypeClass(Client.class));
+		ss = new DefaultSerializationServiceBuilder().setConfig(cfg).build();
+	}
+
+	private Client roundTrip(Client c) {
+		return ss.toObject(ss.toData(c));
+	}
+
+	private static User getUser() {
+		User u = new User();
+		u.setId(5L);
+		u.setUpdated(new Date());
+		return u;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Room r = new Room();
+		r.setId(7L);
+		r.setUpdated(new Date());
+		Client c = new Client("session", 3, getUser(), "picture");
+		c.setRemoteAddress("127.0.0.1");
+		c.setServerId("server");
+		c.setRoom(r);
+		c.allow(Right.AUDIO, Right.VIDEO, Right.WHITEBOARD);
+		c.set(Activity.AUDIO_VIDEO);
+		StreamDesc cam = c.addStream(StreamType.WEBCAM, Activity.AUDIO, Activity.VIDEO).setWidth(640).setHeight(480);
+		StreamDesc screen = c.addStream(StreamType.SCREEN);
+		c.setCam(1).setMic(2).setWidth(640).setHeight(480);
+
+		Client copy = roundTrip(c);
+		assertEquals(c.getUid(), copy.getUid());
+		assertEquals(c.getSid(), copy.getSid());
+		assertEquals(c.getSessionId(), copy.getSessionId());
+		assertEquals(c.getPageId(), copy.getPageId());
+		assertEquals(c.getConnectedSince(), copy.getConnectedSince());
+		assertEquals(c.getPictureUri(), copy.getPictureUri());
+		assertEquals(c.getRemoteAddress(), copy.getRemoteAddress());
+		assertEquals(c.getServerId(), copy.getServerId());
+		assertEquals(5L, copy.getUserId(), "User id should be available without loading the entity");
+		assertEquals(7L, copy.getRoomId(), "Room id should be available without loading the entity");
+		assertEquals(Set.of(Right.AUDIO, Right.VIDEO, Right.WHITEBOARD), copy.getRights());
+		assertEquals(Set.of(Activity.AUDIO, Activity.VIDEO, Activity.AUDIO_VIDEO), copy.getActivities());
+		assertEquals(1, copy.getCam());
+		assertEquals(2, copy.getMic());
+		assertEquals(640, copy.getWidth());
+		assertEquals(480, copy.getHeight());
+
+		Map<String, StreamDesc> streams = new HashMap<>();
+		copy.getStreams().forEach(sd -> streams.put(sd.getUid(), sd));
+		assertEquals(2, streams.size());
+		for (StreamDesc sd : new StreamDesc[] {cam, screen}) {
+			StreamDesc csd = streams.get(sd.getUid());
+			assertNotNull(csd, "Stream should be restored");
+			assertSame(copy, csd.getClient());
+			assertEquals(sd.getType(), csd.getType());
+			assertEquals(sd.getWidth(), csd.getWidth());
+			assertEquals(sd.getHeight(), csd.getHeight());
+			assertEquals(Set.copyOf(sd.getActivities()), Set.copyOf(csd.getActivities()));
+		}
+	}
+
+	@Test
+	public void testNoRoom() {
+		Client copy = roundTrip(new Client("session", 1, getUser(), "picture"));
+		assertNull(copy.getRoomId());
+		assertNull(copy.getRoom());
+		assertTrue(copy.getStreams().isEmpty());
+	}
+
+	@Test
+	public void testMergeKeepsLoaded() {
+		User u = getUser();
+		Client c = new Client("session", 1, u, "picture");
+		Client copy = roundTrip(c);
+		c.merge(copy);
+		assertSame(u, c.getUser(), "Loaded user of the same version should be kept");
+
+		User modified = getUser();
+		modified.setUpdated(new Date(u.getUpdated().getTime() + 1000));
+		c.merge(roundTrip(new Client("session", 1, modified, "picture")));
+		assertNull(c.getUser(), "Modified user can't be loaded without application");
+		assertEquals(5L, c.getUserId(), "User id should be kept");
+	}
+}
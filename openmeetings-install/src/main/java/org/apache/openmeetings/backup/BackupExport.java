@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.backup;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.openmeetings.db.bind.Constants.APPOINTMENT_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.CALENDAR_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.CFG_LIST_NODE;
@@ -46,24 +47,28 @@ import static org.apache.openmeetings.util.OmFileHelper.getCustomCss;
 import static org.apache.openmeetings.util.OmFileHelper.getStreamsHibernateDir;
 import static org.apache.openmeetings.util.OmFileHelper.getUploadDir;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
@@ -80,19 +85,10 @@ import org.apache.openmeetings.db.dao.user.PrivateMessageDao;
 import org.apache.openmeetings.db.dao.user.PrivateMessageFolderDao;
 import org.apache.openmeetings.db.dao.user.UserContactDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
-import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
 import org.apache.openmeetings.db.entity.basic.Configuration;
-import org.apache.openmeetings.db.entity.calendar.Appointment;
 import org.apache.openmeetings.db.entity.calendar.OmCalendar;
-import org.apache.openmeetings.db.entity.file.FileItem;
-import org.apache.openmeetings.db.entity.record.Recording;
-import org.apache.openmeetings.db.entity.room.Room;
-import org.apache.openmeetings.db.entity.room.RoomPoll;
 import org.apache.openmeetings.db.entity.server.LdapConfig;
-import org.apache.openmeetings.db.entity.server.OAuthServer;
-import org.apache.openmeetings.db.entity.user.Group;
-import org.apache.openmeetings.db.entity.user.PrivateMessage;
-import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.installation.ImportInitvalues;
 import org.apache.openmeetings.installation.InstallationConfig;
 import org.slf4j.Logger;
@@ -108,6 +104,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class BackupExport {
 	private static final Logger log = LoggerFactory.getLogger(BackupExport.class);
+	private static final int PAGE_SIZE = 1000;
+	private static final Map<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
 	private static final String BACKUP_COMMENT =
 			"###############################################\n"
 			+ "This File is auto-generated by the Backup Tool \n"
@@ -157,43 +155,43 @@ public class BackupExport {
 			/*
 			 * ##################### Backup Groups
 			 */
-			writeList(zos, "version.xml", VERSION_LIST_NODE, List.of(BackupVersion.get()));
+			writeList(zos, "version.xml", VERSION_LIST_NODE, List.of(BackupVersion.get()), progressHolder);
 			progressHolder.setProgress(2);
-			exportGroups(zos);
+			exportGroups(zos, progressHolder);
 			progressHolder.setProgress(5);
-			exportUsers(zos);
+			exportUsers(zos, progressHolder);
 			progressHolder.setProgress(10);
-			exportRoom(zos);
+			exportRoom(zos, progressHolder);
 			progressHolder.setProgress(15);
-			exportRoomGroup(zos);
+			exportRoomGroup(zos, progressHolder);
 			progressHolder.setProgress(17);
-			exportRoomFile(zos);
+			exportRoomFile(zos, progressHolder);
 			progressHolder.setProgress(17);
-			exportCalendar(zos);
+			exportCalendar(zos, progressHolder);
 			progressHolder.setProgress(22);
-			exportAppointment(zos);
+			exportAppointment(zos, progressHolder);
 			progressHolder.setProgress(25);
-			exportMeetingMember(zos);
+			exportMeetingMember(zos, progressHolder);
 			progressHolder.setProgress(30);
-			exportLdap(zos);
+			exportLdap(zos, progressHolder);
 			progressHolder.setProgress(35);
-			exportOauth(zos);
+			exportOauth(zos, progressHolder);
 			progressHolder.setProgress(45);
-			exportPrivateMsg(zos);
+			exportPrivateMsg(zos, progressHolder);
 			progressHolder.setProgress(50);
-			exportPrivateMsgFolder(zos);
+			exportPrivateMsgFolder(zos, progressHolder);
 			progressHolder.setProgress(55);
-			exportContacts(zos);
+			exportContacts(zos, progressHolder);
 			progressHolder.setProgress(60);
-			exportFile(zos);
+			exportFile(zos, progressHolder);
 			progressHolder.setProgress(65);
-			exportRecording(zos);
+			exportRecording(zos, progressHolder);
 			progressHolder.setProgress(70);
-			exportPoll(zos);
+			exportPoll(zos, progressHolder);
 			progressHolder.setProgress(75);
-			exportConfig(zos);
+			exportConfig(zos, progressHolder);
 			progressHolder.setProgress(80);
-			exportChat(zos);
+			exportChat(zos, progressHolder);
 			progressHolder.setProgress(85);
 
 			if (includeFiles) {
@@ -228,189 +226,233 @@ public class BackupExport {
 	/*
 	 * ##################### Backup  Groups
 	 */
-	private void exportGroups(ZipOutputStream zos) throws Exception {
-		List<Group> list = groupDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "organizations.xml", GROUP_LIST_NODE, list);
+	private void exportGroups(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "organizations.xml", GROUP_LIST_NODE, groupDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Users
 	 */
-	private void exportUsers(ZipOutputStream zos) throws Exception {
-		List<User> list = userDao.getAllBackupUsers();
-		writeList(zos, "users.xml", USER_LIST_NODE, list);
+	private void exportUsers(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "users.xml", USER_LIST_NODE, userDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Room
 	 */
-	private void exportRoom(ZipOutputStream zos) throws Exception {
-		List<Room> list = roomDao.get();
-		writeList(zos, "rooms.xml", ROOM_LIST_NODE, list);
+	private void exportRoom(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "rooms.xml", ROOM_LIST_NODE, roomDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Room Groups
 	 */
-	private void exportRoomGroup(ZipOutputStream zos) throws Exception {
-		writeList(zos, "rooms_organisation.xml", ROOM_GRP_LIST_NODE, roomDao.getGroups());
+	private void exportRoomGroup(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "rooms_organisation.xml", ROOM_GRP_LIST_NODE, roomDao.getGroups(), progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Room Files
 	 */
-	private void exportRoomFile(ZipOutputStream zos) throws Exception {
-		writeList(zos, "roomFiles.xml", ROOM_FILE_LIST_NODE, roomDao.getFiles());
+	private void exportRoomFile(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "roomFiles.xml", ROOM_FILE_LIST_NODE, roomDao.getFiles(), progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Calendars
 	 */
-	private void exportCalendar(ZipOutputStream zos) throws Exception {
+	private void exportCalendar(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
 		List<OmCalendar> list = calendarDao.get();
-		writeList(zos, "calendars.xml", CALENDAR_LIST_NODE, list);
+		writeList(zos, "calendars.xml", CALENDAR_LIST_NODE, list, progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Appointments
 	 */
-	private void exportAppointment(ZipOutputStream zos) throws Exception {
-		List<Appointment> list = appointmentDao.get();
-		writeList(zos, "appointements.xml", APPOINTMENT_LIST_NODE, list);
+	private void exportAppointment(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "appointements.xml", APPOINTMENT_LIST_NODE, appointmentDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Backup Meeting Members
 	 */
-	private void exportMeetingMember(ZipOutputStream zos) throws Exception {
+	private void exportMeetingMember(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
 		writeList(zos, "meetingmembers.xml",
-				MMEMBER_LIST_NODE, meetingMemberDao.get());
+				MMEMBER_LIST_NODE, meetingMemberDao.get(), progressHolder);
 	}
 
 	/*
 	 * ##################### LDAP Configs
 	 */
-	private void exportLdap(ZipOutputStream zos) throws Exception {
+	private void exportLdap(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
 		List<LdapConfig> ldapList = ldapConfigDao.get();
 		if (!ldapList.isEmpty()) {
 			ldapList.remove(0);
 		}
-		writeList(zos, "ldapconfigs.xml", LDAP_LIST_NODE, ldapList);
+		writeList(zos, "ldapconfigs.xml", LDAP_LIST_NODE, ldapList, progressHolder);
 	}
 
 	/*
 	 * ##################### OAuth2 servers
 	 */
-	private void exportOauth(ZipOutputStream zos) throws Exception {
-		List<OAuthServer> list = auth2Dao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "oauth2servers.xml", OAUTH_LIST_NODE, list);
+	private void exportOauth(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "oauth2servers.xml", OAUTH_LIST_NODE, auth2Dao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Private Messages
 	 */
-	private void exportPrivateMsg(ZipOutputStream zos) throws Exception {
-		List<PrivateMessage> list = privateMessageDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "privateMessages.xml", MSG_LIST_NODE, list);
+	private void exportPrivateMsg(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "privateMessages.xml", MSG_LIST_NODE, privateMessageDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Private Message Folders
 	 */
-	private void exportPrivateMsgFolder(ZipOutputStream zos) throws Exception {
+	private void exportPrivateMsgFolder(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
 		writeList(zos, "privateMessageFolder.xml",
-				MSG_FOLDER_LIST_NODE, privateMessageFolderDao.get(0, Integer.MAX_VALUE));
+				MSG_FOLDER_LIST_NODE, privateMessageFolderDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### User Contacts
 	 */
-	private void exportContacts(ZipOutputStream zos) throws Exception {
-		writeList(zos, "userContacts.xml", CONTACT_LIST_NODE, userContactDao.get());
+	private void exportContacts(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "userContacts.xml", CONTACT_LIST_NODE, userContactDao.get(), progressHolder);
 	}
 
 	/*
 	 * ##################### File-Explorer
 	 */
-	private void exportFile(ZipOutputStream zos) throws Exception {
-		List<FileItem> list = fileItemDao.get();
-		writeList(zos, "fileExplorerItems.xml", FILE_LIST_NODE, list);
+	private void exportFile(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "fileExplorerItems.xml", FILE_LIST_NODE, fileItemDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Recordings
 	 */
-	private void exportRecording(ZipOutputStream zos) throws Exception {
-		List<Recording> list = recordingDao.get();
-		writeList(zos, "flvRecordings.xml", RECORDING_LIST_NODE, list);
+	private void exportRecording(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "flvRecordings.xml", RECORDING_LIST_NODE, recordingDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Polls
 	 */
-	private void exportPoll(ZipOutputStream zos) throws Exception {
-		List<RoomPoll> list = pollManager.get();
-		writeList(zos, "roompolls.xml", POLL_LIST_NODE, list);
+	private void exportPoll(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "roompolls.xml", POLL_LIST_NODE, pollManager::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Config
 	 */
-	private void exportConfig(ZipOutputStream zos) throws Exception {
-		List<Configuration> list = configurationDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "configs.xml", CFG_LIST_NODE, list);
+	private void exportConfig(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "configs.xml", CFG_LIST_NODE, configurationDao::getAfter, progressHolder);
 	}
 
 	/*
 	 * ##################### Chat
 	 */
-	private void exportChat(ZipOutputStream zos) throws Exception {
-		List<ChatMessage> list = chatDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "chat_messages.xml", CHAT_LIST_NODE, list);
+	private void exportChat(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, "chat_messages.xml", CHAT_LIST_NODE, chatDao::getAfter, progressHolder);
 	}
 
-	private static <T> ByteArrayOutputStream stream(String listElement, List<T> list) throws Exception {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(10 * 1024); //10K
-		writeList(baos, listElement, list);
-		return baos;
+	/**
+	 * Source of the entities being exported, page by page
+	 */
+	@FunctionalInterface
+	interface Pager<T> {
+		/**
+		 * @param last - last entity of previous page, {@code null} for the first page
+		 * @param count - page size
+		 * @return next page
+		 */
+		List<T> get(T last, int count);
+	}
+
+	/**
+	 * Keyset paging: next page is requested by id of the last exported entity, so
+	 * the cost of a page doesn't depend on its position and concurrent inserts or
+	 * deletes do not shift pages
+	 */
+	@FunctionalInterface
+	interface Keyset<T extends IDataProviderEntity> {
+		List<T> get(long id, int count);
 	}
 
-	private static <T> void writeList(ZipOutputStream zos, String fileName, String listElement, List<T> list) throws Exception {
+	private static <T> Pager<T> pager(List<T> list) {
+		return (last, count) -> last == null ? list : List.of();
+	}
+
+	private static <T extends IDataProviderEntity> Pager<T> pager(Keyset<T> keyset) {
+		return (last, count) -> keyset.get(last == null ? 0 : last.getId(), count);
+	}
+
+	private static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+		JAXBContext jc = contexts.get(clazz);
+		if (jc == null) {
+			jc = JAXBContext.newInstance(clazz);
+			contexts.put(clazz, jc);
+		}
+		return jc;
+	}
+
+	private static <T> void writeList(ZipOutputStream zos, String fileName, String listElement, List<T> list, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, fileName, listElement, pager(list), progressHolder);
+	}
+
+	private static <T extends IDataProviderEntity> void writeList(ZipOutputStream zos, String fileName, String listElement, Keyset<T> keyset, ProgressHolder progressHolder) throws Exception {
+		writeList(zos, fileName, listElement, pager(keyset), progressHolder);
+	}
+
+	/**
+	 * Entities are fetched page by page and marshalled directly into the zip entry,
+	 * so memory consumption doesn't depend on the size of the table
+	 */
+	private static <T> void writeList(ZipOutputStream zos, String fileName, String listElement, Pager<T> pager, ProgressHolder progressHolder) throws Exception {
 		ZipEntry e = new ZipEntry(fileName);
 		zos.putNextEntry(e);
-		ByteArrayOutputStream baos = stream(listElement, list);
-		zos.write(baos.toByteArray());
+		try (Writer w = new BufferedWriter(new OutputStreamWriter(new CloseShieldOutputStream(zos), UTF_8))) {
+			writeList(w, listElement, pager, progressHolder);
+		}
 		zos.closeEntry();
 	}
 
-	private static <T> void writeList(OutputStream os, String listElement, List<T> list) throws Exception {
-		try (OutputStreamWriter sw = new OutputStreamWriter(os)) {
-			sw.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-			sw.write("<!--");
-			sw.write(BACKUP_COMMENT);
-			sw.write("-->\n");
-			sw.write("<root>\n");
-			sw.write("<" + listElement + ">\n");
-
-			if (list != null && !list.isEmpty()) {
-				@SuppressWarnings("unchecked")
-				Class<T> eClazz = (Class<T>)list.get(0).getClass();
-				JAXBContext jc = JAXBContext.newInstance(eClazz);
-				Marshaller marshaller = jc.createMarshaller();
-				marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-				for (T t : list) {
-					try {
-						marshaller.marshal(t, sw);
-						sw.write("\n");
-					} catch (Exception e) {
-						log.debug("Exception While writing node of type: " + t.getClass(), e);
-					}
+	private static <T> void writeList(Writer w, String listElement, Pager<T> pager, ProgressHolder progressHolder) throws Exception {
+		w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		w.write("<!--");
+		w.write(BACKUP_COMMENT);
+		w.write("-->\n");
+		w.write("<root>\n");
+		w.write("<" + listElement + ">\n");
+
+		Marshaller marshaller = null;
+		long rows = 0;
+		T last = null;
+		while (true) {
+			List<T> page = pager.get(last, PAGE_SIZE);
+			for (T t : page) {
+				if (marshaller == null) {
+					marshaller = getContext(t.getClass()).createMarshaller();
+					marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+					marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+				}
+				try {
+					marshaller.marshal(t, w);
+					w.write("\n");
+				} catch (Exception e) {
+					log.debug("Exception While writing node of type: " + t.getClass(), e);
 				}
 			}
-			sw.write("</" + listElement + ">\n");
-			sw.write("</root>\n");
+			rows += page.size();
+			progressHolder.addRows(page.size());
+			if (page.isEmpty()) {
+				break;
+			}
+			last = page.get(page.size() - 1);
 		}
+		w.write("</" + listElement + ">\n");
+		w.write("</root>\n");
+		log.debug("{} rows of {} were exported", rows, listElement);
 	}
 
 	private static void writeZip(String prefix, URI base, File file, ZipOutputStream zos) throws IOException {
@@ -441,11 +483,12 @@ public class BackupExport {
 	 */
 	public static void main(String[] args) throws Exception {
 		List<Configuration> list = ImportInitvalues.initialCfgs(new InstallationConfig());
-		ByteArrayOutputStream baos = stream("configs", list);
 		File f = new File(args[0]);
 		if (!f.exists() && !f.getParentFile().exists()) {
 			f.getParentFile().mkdirs();
 		}
-		Files.write(Paths.get(args[0]), baos.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try (Writer w = Files.newBufferedWriter(Paths.get(args[0]), UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeList(w, "configs", pager(list), new ProgressHolder());
+		}
 	}
 }
@@ -144,8 +144,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -153,6 +156,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
@@ -234,6 +243,8 @@ public class BackupImport {
 	private static final Logger log = LoggerFactory.getLogger(BackupImport.class);
 	private static final Map<String, String> outdatedConfigKeys = new HashMap<>();
 	private static final Map<String, Configuration.Type> configTypes = new HashMap<>();
+	private static final int IMPORT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final int PARALLEL_STEP = 11; // 5 parallel groups: 37% -> 92%
 	private static final Pattern UUID_PATTERN = Pattern.compile("^[\\da-f]{8}(?:-[\\da-f]{4}){3}-[\\da-f]{12}$");
 	static {
 		outdatedConfigKeys.put("crypt_ClassName", CONFIG_CRYPT);
@@ -340,16 +351,16 @@ public class BackupImport {
 	@Autowired
 	private DocumentConverter docConverter;
 
-	private final Map<Long, Long> userMap = new HashMap<>();
-	private final Map<Long, Long> groupMap = new HashMap<>();
-	private final Map<Long, Long> calendarMap = new HashMap<>();
-	private final Map<Long, Long> appointmentMap = new HashMap<>();
-	private final Map<Long, Long> roomMap = new HashMap<>();
-	private final Map<Long, Long> fileItemMap = new HashMap<>();
-	private final Map<Long, Long> messageFolderMap = new HashMap<>();
-	private final Map<Long, Long> userContactMap = new HashMap<>();
-	private final Map<String, String> fileMap = new HashMap<>();
-	private final Map<String, String> hashMap = new HashMap<>();
+	private final Map<Long, Long> userMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> groupMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> calendarMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> appointmentMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> roomMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> fileItemMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> messageFolderMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> userContactMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<String, String> fileMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<String, String> hashMap = Collections.synchronizedMap(new HashMap<>());
 
 	private static File validate(String ename, File intended) throws IOException {
 		final String intendedPath = intended.getCanonicalPath();
@@ -405,70 +416,95 @@ public class BackupImport {
 
 		File f = unzip(is);
 
-		BackupVersion ver = getVersion(f);
-		progressHolder.setProgress(2);
-		importConfigs(f);
-		progressHolder.setProgress(7);
-		importGroups(f);
-		progressHolder.setProgress(12);
-		importLdap(f);
-		progressHolder.setProgress(17);
-		importOauth(f);
-		progressHolder.setProgress(22);
-		importUsers(f);
-		progressHolder.setProgress(27);
-		importRooms(f);
-		progressHolder.setProgress(32);
-		importRoomGroups(f);
-		progressHolder.setProgress(37);
-		importChat(f);
-		progressHolder.setProgress(42);
-		importCalendars(f);
-		progressHolder.setProgress(47);
-		importAppointments(f);
-		progressHolder.setProgress(52);
-		importMeetingMembers(f);
-		progressHolder.setProgress(57);
-		importRecordings(f);
-		progressHolder.setProgress(62);
-		importPrivateMsgFolders(f);
-		progressHolder.setProgress(67);
-		importContacts(f);
-		progressHolder.setProgress(72);
-		importPrivateMsgs(f);
-		progressHolder.setProgress(77);
-		List<FileItem> files = importFiles(f);
-		progressHolder.setProgress(82);
-		importPolls(f);
-		progressHolder.setProgress(87);
-		importRoomFiles(f);
-		progressHolder.setProgress(92);
-
-		log.info("Room files import complete, starting copy of files and folders");
-		/*
-		 * ##################### Import real files and folders
-		 */
-		importFolders(f);
-		progressHolder.setProgress(97);
-
-		if (ver.compareTo(BackupVersion.get("4.0.0")) < 0) {
-			for (BaseFileItem bfi : files) {
-				if (bfi.isDeleted()) {
-					continue;
-				}
-				if (BaseFileItem.Type.PRESENTATION == bfi.getType()) {
-					convertOldPresentation((FileItem)bfi);
-					fileItemDao.updateBase(bfi);
-				}
-				if (BaseFileItem.Type.WML_FILE == bfi.getType()) {
-					try {
-						Whiteboard wb = WbConverter.convert((FileItem)bfi);
-						wb.save(bfi.getFile().toPath());
-					} catch (Exception e) {
-						log.error("Unexpected error while converting WB", e);
+		final ExecutorService pool = Executors.newFixedThreadPool(IMPORT_THREADS);
+		try {
+			final List<CompletableFuture<Void>> copies = new CopyOnWriteArrayList<>();
+			BackupVersion ver = getVersion(f);
+			progressHolder.setProgress(2);
+			copies.add(async(pool, () -> copyCss(f)));
+			importConfigs(f);
+			progressHolder.setProgress(7);
+			importGroups(f);
+			copies.add(async(pool, () -> processFilesRoot(f, GROUP_LOGO_DIR)));
+			progressHolder.setProgress(12);
+			importLdap(f);
+			progressHolder.setProgress(17);
+			importOauth(f);
+			progressHolder.setProgress(22);
+			importUsers(f);
+			copies.add(async(pool, () -> processFilesRoot(f, PROFILES_DIR)));
+			progressHolder.setProgress(27);
+			importRooms(f);
+			progressHolder.setProgress(32);
+			importRoomGroups(f);
+			progressHolder.setProgress(37);
+
+			/*
+			 * Users, rooms and groups are in place, following entity groups do not depend on each other
+			 */
+			final AtomicInteger progress = new AtomicInteger(37);
+			final List<FileItem> files = new ArrayList<>();
+			join(List.of(
+					async(pool, () -> {
+						importChat(f);
+						step(progressHolder, progress);
+					})
+					, async(pool, () -> {
+						importCalendars(f);
+						importAppointments(f);
+						importMeetingMembers(f);
+						step(progressHolder, progress);
+					})
+					, async(pool, () -> {
+						importPrivateMsgFolders(f);
+						importContacts(f);
+						importPrivateMsgs(f);
+						step(progressHolder, progress);
+					})
+					, async(pool, () -> {
+						// recordings and files are sharing hashes, need to be imported one by one
+						importRecordings(f);
+						copies.add(async(pool, () -> importRecordingFiles(f)));
+						files.addAll(importFiles(f));
+						copies.add(async(pool, () -> processFilesRoot(f, FILES_DIR)));
+						copies.add(async(pool, () -> processFilesRoot(f, WML_DIR)));
+						step(progressHolder, progress);
+					})
+					, async(pool, () -> {
+						importPolls(f);
+						step(progressHolder, progress);
+					})));
+			importRoomFiles(f);
+			progressHolder.setProgress(92);
+
+			log.info("Room files import complete, waiting for copy of files and folders");
+			/*
+			 * ##################### Import real files and folders
+			 */
+			join(copies);
+			progressHolder.setProgress(97);
+
+			if (ver.compareTo(BackupVersion.get("4.0.0")) < 0) {
+				for (BaseFileItem bfi : files) {
+					if (bfi.isDeleted()) {
+						continue;
+					}
+					if (BaseFileItem.Type.PRESENTATION == bfi.getType()) {
+						convertOldPresentation((FileItem)bfi);
+						fileItemDao.updateBase(bfi);
+					}
+					if (BaseFileItem.Type.WML_FILE == bfi.getType()) {
+						try {
+							Whiteboard wb = WbConverter.convert((FileItem)bfi);
+							wb.save(bfi.getFile().toPath());
+						} catch (Exception e) {
+							log.error("Unexpected error while converting WB", e);
+						}
 					}
 				}
 			}
+		} finally {
+			pool.shutdownNow();
 		}
 		log.info("File explorer item import complete, clearing temp files");
 
@@ -476,6 +512,44 @@ public class BackupImport {
 		progressHolder.setProgress(100);
 	}
 
+	@FunctionalInterface
+	private interface ImportTask {
+		void run() throws Exception;
+	}
+
+	private static CompletableFuture<Void> async(ExecutorService pool, ImportTask task) {
+		return CompletableFuture.runAsync(() -> {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new BackupException(e);
+			}
+		}, pool);
+	}
+
+	/**
+	 * Waits for all tasks (including the ones added while waiting) to complete
+	 *
+	 * @param tasks - tasks to wait for
+	 * @throws Exception first error of the tasks if any
+	 */
+	private static void join(List<CompletableFuture<Void>> tasks) throws Exception {
+		for (int i = 0; i < tasks.size(); ++i) {
+			try {
+				tasks.get(i).join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				throw cause instanceof Exception ? (Exception)cause : e;
+			}
+		}
+	}
+
+	private static void step(ProgressHolder progressHolder, AtomicInteger progress) {
+		progressHolder.setProgress(progress.addAndGet(PARALLEL_STEP));
+	}
+
 	static BackupVersion getVersion(File base) {
 		List<BackupVersion> list = new ArrayList<>(1);
 		readList(base, "version.xml", VERSION_LIST_NODE, VERSION_NODE, BackupVersion.class, v -> list.add(v), true);
@@ -1151,9 +1225,20 @@ public class BackupImport {
 		}
 	}
 
+	/**
+	 * Extracted backup is removed after import, so files are moved (renamed in most cases) instead of copied
+	 */
+	private static void move(File src, File dest) throws IOException {
+		File dir = dest.getParentFile();
+		if (!dir.exists() && !dir.mkdirs()) {
+			log.warn("Failed to create folders: {}", dir);
+		}
+		Files.move(src.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
 	private static void changeHash(File f, File dir, String hash, String inExt) throws IOException {
 		String ext = inExt == null ? getFileExt(f.getName()) : inExt;
-		FileUtils.copyFile(f, new File(dir, getName(hash, ext)));
+		move(f, new File(dir, getName(hash, ext)));
 	}
 
 	private void processFiles(File baseDir) throws IOException {
@@ -1170,7 +1255,7 @@ public class BackupImport {
 				changeHash(rf, dir, hash, EXTENSION_JPG);
 			} else {
 				for (File f : rf.listFiles()) {
-					FileUtils.copyFile(f, new File(dir
+					move(f, new File(dir
 							, f.getName().startsWith(oldHash) ? getName(hash, getFileExt(f.getName())) : f.getName()));
 				}
 			}
@@ -1200,34 +1285,31 @@ public class BackupImport {
 		}
 	}
 
-	private void processFilesRoot(File baseDir) throws IOException {
-		// Now check the room files and import them
-		final File roomFilesFolder = new File(baseDir, BCKP_ROOM_FILES);
-		log.debug("roomFilesFolder PATH {} ", roomFilesFolder.getCanonicalPath());
-		if (!roomFilesFolder.exists()) {
+	/**
+	 * Imports one of the room files sub-folders, should be called as soon as
+	 * corresponding entities are imported
+	 *
+	 * @param baseDir - extracted backup folder
+	 * @param fName - name of the sub-folder
+	 */
+	private void processFilesRoot(File baseDir, String fName) throws IOException {
+		final File file = new File(new File(baseDir, BCKP_ROOM_FILES), fName);
+		log.debug("room files folder PATH {} ", file.getCanonicalPath());
+		if (!file.isDirectory()) {
 			return;
 		}
-
-		for (File file : roomFilesFolder.listFiles()) {
-			if (file.isDirectory()) {
-				String fName = file.getName();
-				if (PROFILES_DIR.equals(fName)) {
-					processProfiles(file);
-				} else if (FILES_DIR.equals(fName)) {
-					processFiles(file);
-				} else if (GROUP_LOGO_DIR.equals(fName)) {
-					processGroupFiles(file);
-				} else if (WML_DIR.equals(fName)) {
-					processWmls(file);
-				}
-			}
+		if (PROFILES_DIR.equals(fName)) {
+			processProfiles(file);
+		} else if (FILES_DIR.equals(fName)) {
+			processFiles(file);
+		} else if (GROUP_LOGO_DIR.equals(fName)) {
+			processGroupFiles(file);
+		} else if (WML_DIR.equals(fName)) {
+			processWmls(file);
 		}
 	}
 
-	private void importFolders(File baseDir) throws IOException {
-		processFilesRoot(baseDir);
-
-		// Now check the recordings and import them
+	private void importRecordingFiles(File baseDir) throws IOException {
 		final File recDir = new File(baseDir, BCKP_RECORD_FILES);
 		log.debug("sourceDirRec PATH {}", recDir.getCanonicalPath());
 		if (recDir.exists()) {
@@ -1235,18 +1317,21 @@ public class BackupImport {
 			for (File r : recDir.listFiles()) {
 				String n = fileMap.get(r.getName());
 				if (n != null) {
-					FileUtils.copyFile(r, new File(hiberDir, n));
+					move(r, new File(hiberDir, n));
 				} else {
 					String oldHash = OmFileHelper.getFileName(r.getName());
 					String hash = hashMap.get(oldHash);
 					if (hash == null) {
-						FileUtils.copyFileToDirectory(r, hiberDir);
+						move(r, new File(hiberDir, r.getName()));
 					} else {
 						changeHash(r, hiberDir, hash, null);
 					}
 				}
 			}
 		}
+	}
+
+	private static void copyCss(File baseDir) throws IOException {
 		final File cssDir = new File(baseDir, CSS_DIR);
 		if (cssDir.exists()) {
 			final File wCssDir = getCssDir();
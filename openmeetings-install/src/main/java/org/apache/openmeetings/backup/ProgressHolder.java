@@ -24,6 +24,7 @@ public class ProgressHolder implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	private int progress;
+	private long rows;
 
 	public int getProgress() {
 		return progress;
@@ -32,4 +33,15 @@ public class ProgressHolder implements Serializable {
 	public void setProgress(int progress) {
 		this.progress = progress;
 	}
+
+	/**
+	 * @return number of rows processed
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	public void addRows(long count) {
+		rows += count;
+	}
 }
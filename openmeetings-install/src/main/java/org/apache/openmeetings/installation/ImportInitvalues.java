@@ -67,6 +67,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_AUDI
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_AUDIO_RATE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_VIDEO_PRESET;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MYROOMS_ENABLED;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_MAX_TASKS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_PORT_START;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_TASK_TIMEOUT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PASS_MIN_LENGTH;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_FFMPEG;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_IMAGEMAGIC;
@@ -87,7 +91,9 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ENAB
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_EXTEN_CONTEXT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE_LIMIT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_TIMEOUT;
@@ -111,6 +117,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.function.Consumer;
 
+import org.apache.openmeetings.core.converter.OfficeProcessPool;
+import org.apache.openmeetings.core.mail.MailHandler;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
 import org.apache.openmeetings.db.dao.room.RoomDao;
@@ -221,6 +229,10 @@ public class ImportInitvalues {
 
 		addCfg(list, CONFIG_SMTP_TIMEOUT, "30000", Configuration.Type.NUMBER,
 				"Socket I/O timeout value in milliseconds. Default is 30 seconds (30000).", VER_1_9);
+		addCfg(list, CONFIG_SMTP_POOL_SIZE, String.valueOf(MailHandler.DEFAULT_POOL_SIZE), Configuration.Type.NUMBER,
+				"Number of threads (and SMTP connections) used to send queued e-mails", VER_5_0_0);
+		addCfg(list, CONFIG_SMTP_RATE_LIMIT, String.valueOf(MailHandler.DEFAULT_RATE_LIMIT), Configuration.Type.NUMBER,
+				"Max number of e-mails sent per minute, 0 - no limit", VER_5_0_0);
 
 		addCfg(list, CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME, Configuration.Type.STRING, "Name of the Browser Title window", VER_3_0);
 
@@ -241,6 +253,15 @@ public class ImportInitvalues {
 		addCfg(list, CONFIG_PATH_OFFICE, cfg.getOfficePath(), Configuration.Type.STRING,
 				"The path to OpenOffice/LibreOffice (optional) please set this to the real path in case jodconverter is unable to find OpenOffice/LibreOffice installation automatically", VER_2_0);
 
+		addCfg(list, CONFIG_OFFICE_POOL_SIZE, String.valueOf(OfficeProcessPool.DEFAULT_POOL_SIZE), Configuration.Type.NUMBER,
+				"Number of OpenOffice/LibreOffice processes used for document conversion", VER_5_0_0);
+		addCfg(list, CONFIG_OFFICE_PORT_START, String.valueOf(OfficeProcessPool.DEFAULT_PORT_START), Configuration.Type.NUMBER,
+				"First port of OpenOffice/LibreOffice processes, each process uses next port", VER_5_0_0);
+		addCfg(list, CONFIG_OFFICE_TASK_TIMEOUT, String.valueOf(OfficeProcessPool.DEFAULT_TASK_TIMEOUT), Configuration.Type.NUMBER,
+				"Max time in seconds of single document conversion, office process is restarted on timeout", VER_5_0_0);
+		addCfg(list, CONFIG_OFFICE_MAX_TASKS, String.valueOf(OfficeProcessPool.DEFAULT_MAX_TASKS), Configuration.Type.NUMBER,
+				"Office process is restarted after this number of conversions", VER_5_0_0);
+
 		addCfg(list, CONFIG_DASHBOARD_RSS_FEED1, cfg.getUrlFeed(), Configuration.Type.STRING, "Feed URL 1", VER_1_9);
 
 		addCfg(list, CONFIG_DASHBOARD_RSS_FEED2, cfg.getUrlFeed2(), Configuration.Type.STRING, "Feed URL 2", VER_1_9);
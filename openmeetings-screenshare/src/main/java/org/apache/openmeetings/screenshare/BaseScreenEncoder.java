@@ -21,9 +21,41 @@ package org.apache.openmeetings.screenshare;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.Robot;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
 
 public abstract class BaseScreenEncoder implements IScreenEncoder {
+	private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+
+	/**
+	 * Captures the screen
+	 *
+	 * @return pixels of the captured screen, row-major, of size {@code dim.getResizeX() * dim.getResizeY()}
+	 */
+	public static int[] getImage(ScreenDimensions dim, Rectangle screen, Robot robot) {
+		BufferedImage image = resize(robot.createScreenCapture(screen), new Rectangle(dim.getResizeX(), dim.getResizeY()));
+		final int w = image.getWidth();
+		final int h = image.getHeight();
+		DataBuffer db = image.getRaster().getDataBuffer();
+		SampleModel sm = image.getSampleModel();
+		if (db instanceof DataBufferInt && db.getNumBanks() == 1 && db.getOffset() == 0
+				&& sm instanceof SinglePixelPackedSampleModel
+				&& ((SinglePixelPackedSampleModel)sm).getScanlineStride() == w
+				&& Arrays.equals(((SinglePixelPackedSampleModel)sm).getBitMasks(), RGB_MASKS))
+		{
+			// image is created for every capture, its pixels can be used as is
+			int[] data = ((DataBufferInt)db).getData();
+			return data.length == w * h ? data : Arrays.copyOf(data, w * h);
+		}
+		return image.getRGB(0, 0, w, h, null, 0, w);
+	}
 
 	public static BufferedImage resize(BufferedImage _img, Rectangle size) {
 		BufferedImage img = _img;
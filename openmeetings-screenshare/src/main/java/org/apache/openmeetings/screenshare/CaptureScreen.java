@@ -116,7 +116,7 @@ public class CaptureScreen extends Thread {
 			}
 
 			timestampDelta = 1000 / core.getDim().getFps();
-			se = new ScreenV1Encoder(core.getDim()); //send keyframe every 3 seconds
+			se = new ParallelScreenV1Encoder(core.getDim()); //send keyframe every 3 seconds
 			startTime = System.currentTimeMillis();
 
 			JobDetail encodeJob = JobBuilder.newJob(EncodeJob.class).withIdentity("EncodeJob", QUARTZ_GROUP_NAME).build();
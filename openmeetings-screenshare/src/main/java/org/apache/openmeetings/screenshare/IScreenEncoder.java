@@ -27,7 +27,14 @@ public interface IScreenEncoder {
 
 	VideoData getUnalteredFrame();
 
-	VideoData encode(int[][] img) throws IOException;
+	/**
+	 * @param img - pixels of the frame, row-major
+	 * @param width - width of the frame
+	 * @param height - height of the frame
+	 * @return encoded frame
+	 * @throws IOException in case of any error
+	 */
+	VideoData encode(int[] img, int width, int height) throws IOException;
 
 	void reset();
 }
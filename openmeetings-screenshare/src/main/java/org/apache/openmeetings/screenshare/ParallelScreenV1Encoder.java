@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.screenshare;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
+import org.red5.server.net.rtmp.event.VideoData;
+
+/**
+ * Screen Video V1 encoder producing the same stream as {@link ScreenV1Encoder}
+ *
+ * Changed blocks are detected by row comparison ({@link Arrays#mismatch(int[], int, int, int[], int, int)}
+ * is intrinsified by JVM), each row of blocks is being compressed by separate thread
+ * using its own {@link Deflater}
+ */
+public class ParallelScreenV1Encoder extends ScreenV1Encoder {
+	private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	private static final ExecutorService pool = createPool();
+	private final ThreadLocal<BlockCoder> coders = ThreadLocal.withInitial(BlockCoder::new);
+	private List<Rectangle> blocks = List.of();
+	private Rectangle blocksArea = null;
+
+	public ParallelScreenV1Encoder(ScreenDimensions dim) {
+		super(dim);
+	}
+
+	private static ExecutorService createPool() {
+		final AtomicInteger idx = new AtomicInteger();
+		return Executors.newFixedThreadPool(THREADS, r -> {
+			Thread t = new Thread(r, "screen-encoder-" + idx.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private class BlockCoder {
+		private final Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		private final byte[] area = new byte[3 * blockSize * blockSize];
+		private byte[] zip = new byte[3 * blockSize * blockSize];
+
+		/**
+		 * @return compressed block or {@code null} if block was not changed
+		 */
+		byte[] encode(int[] img, int[] prev, int width, Rectangle block) {
+			if (prev != null && !changed(img, prev, width, block)) {
+				return null;
+			}
+			int count = 0;
+			for (int y = block.y + block.height - 1; y >= block.y; --y) {
+				for (int i = y * width + block.x, end = i + block.width; i < end; ++i) {
+					int pixel = img[i];
+					area[count++] = (byte)(pixel & 0xFF);			// Blue component
+					area[count++] = (byte)((pixel >> 8) & 0xFF);	// Green component
+					area[count++] = (byte)((pixel >> 16) & 0xFF);	// Red component
+				}
+			}
+			d.reset();
+			d.setInput(area, 0, count);
+			d.finish();
+			int written = 0;
+			while (!d.finished()) {
+				if (written == zip.length) {
+					zip = Arrays.copyOf(zip, 2 * zip.length);
+				}
+				written += d.deflate(zip, written, zip.length - written);
+			}
+			return Arrays.copyOf(zip, written);
+		}
+	}
+
+	private static boolean changed(int[] img, int[] prev, int width, Rectangle block) {
+		for (int y = block.y; y < block.y + block.height; ++y) {
+			int from = y * width + block.x;
+			int to = from + block.width;
+			if (Arrays.mismatch(img, from, to, prev, from, to) > -1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return rows of blocks in stream order
+	 */
+	private List<Rectangle> getBlocks(Rectangle imgArea) {
+		if (!imgArea.equals(blocksArea)) {
+			List<Rectangle> list = new ArrayList<>();
+			Rectangle area = getNextBlock(imgArea, null);
+			while (area.width > 0 && area.height > 0) {
+				list.add(area);
+				area = getNextBlock(imgArea, area);
+			}
+			blocks = list;
+			blocksArea = imgArea;
+		}
+		return blocks;
+	}
+
+	@Override
+	public synchronized VideoData encode(int[] img, int width, int height) throws IOException {
+		Rectangle imgArea = new Rectangle(width, height);
+		final int[] prev = startFrame(img, imgArea) ? null : last;
+		final List<Rectangle> list = getBlocks(imgArea);
+		final byte[][] res = new byte[list.size()][];
+		final int cols = (width + blockSize - 1) / blockSize;
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int row = 0; row * cols < list.size(); ++row) {
+			final int start = row * cols;
+			final int end = Math.min(start + cols, list.size());
+			tasks.add(() -> {
+				BlockCoder coder = coders.get();
+				for (int i = start; i < end; ++i) {
+					res[i] = coder.encode(img, prev, width, list.get(i));
+				}
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Encoding was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Unexpected error while encoding", e.getCause());
+		}
+		for (byte[] b : res) {
+			if (b == null) {
+				writeShort(ba, 0);
+			} else {
+				writeShort(ba, b.length);
+				ba.write(b);
+			}
+		}
+		last = img;
+		return getData(ba.toByteArray());
+	}
+}
@@ -23,8 +23,6 @@ import static org.red5.io.IoConstants.FLAG_FRAMETYPE_INTERFRAME;
 import static org.red5.io.IoConstants.FLAG_FRAMETYPE_KEYFRAME;
 
 import java.awt.Rectangle;
-import java.awt.Robot;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -35,14 +33,14 @@ import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
 import org.red5.server.net.rtmp.event.VideoData;
 
 public class ScreenV1Encoder extends BaseScreenEncoder {
-	private int[][] last = null;
+	protected int[] last = null;
 	private static final int DEFAULT_BLOCK_SIZE = 32;
 	private static final int DEFAULT_SCREEN_WIDTH = 1920;
 	private static final int DEFAULT_SCREEN_HEIGHT = 1080;
 	private int keyFrameIndex;
 	private int frameCount = 0;
-	private int blockSize = DEFAULT_BLOCK_SIZE;
-	private ByteArrayOutputStream ba = new ByteArrayOutputStream(50 + 3 * DEFAULT_SCREEN_WIDTH * DEFAULT_SCREEN_HEIGHT);
+	protected final int blockSize = DEFAULT_BLOCK_SIZE;
+	protected final ByteArrayOutputStream ba = new ByteArrayOutputStream(50 + 3 * DEFAULT_SCREEN_WIDTH * DEFAULT_SCREEN_HEIGHT);
 	private byte[] areaBuf = null;
 	private Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION);
 	private byte[] zipBuf = null;
@@ -60,7 +58,7 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		zipBuf = new byte[3 * blockSize * blockSize];
 	}
 
-	private static VideoData getData(byte[] data) {
+	protected static VideoData getData(byte[] data) {
 		IoBuffer buf = IoBuffer.allocate(data.length);
 		buf.clear();
 		buf.put(data);
@@ -99,32 +97,41 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 	}
 
 	@Override
-	public synchronized VideoData encode(int[][] img) throws IOException {
-		ba.reset();
-		Rectangle imgArea = new Rectangle(img.length, img[0].length);
+	public synchronized VideoData encode(int[] img, int width, int height) throws IOException {
+		Rectangle imgArea = new Rectangle(width, height);
 		Rectangle area = getNextBlock(imgArea, null);
-		boolean isKeyFrame = (frameCount++ % keyFrameIndex) == 0 || last == null;
-
-		//header
-		ba.write(getTag(isKeyFrame ? FLAG_FRAMETYPE_KEYFRAME : FLAG_FRAMETYPE_INTERFRAME, FLAG_CODEC_SCREEN));
-		writeShort(ba, imgArea.width + ((blockSize / 16 - 1) << 12));
-		writeShort(ba, imgArea.height + ((blockSize / 16 - 1) << 12));
-
+		boolean isKeyFrame = startFrame(img, imgArea);
 		while (area.width > 0 && area.height > 0) {
-			writeBytesIfChanged(ba, isKeyFrame, img, area);
+			writeBytesIfChanged(ba, isKeyFrame, img, width, area);
 			area = getNextBlock(imgArea, area);
 		}
 		last = img;
 		return getData(ba.toByteArray());
 	}
 
+	/**
+	 * Resets the buffer and writes frame header
+	 *
+	 * @return {@code true} if key frame should be encoded
+	 */
+	protected boolean startFrame(int[] img, Rectangle imgArea) throws IOException {
+		ba.reset();
+		boolean isKeyFrame = (frameCount++ % keyFrameIndex) == 0 || last == null || last.length != img.length;
+
+		//header
+		ba.write(getTag(isKeyFrame ? FLAG_FRAMETYPE_KEYFRAME : FLAG_FRAMETYPE_INTERFRAME, FLAG_CODEC_SCREEN));
+		writeShort(ba, imgArea.width + ((blockSize / 16 - 1) << 12));
+		writeShort(ba, imgArea.height + ((blockSize / 16 - 1) << 12));
+		return isKeyFrame;
+	}
+
 	@Override
 	public void reset() {
 		last = null;
 		unalteredFrame = null;
 	}
 
-	private Rectangle getNextBlock(Rectangle img, Rectangle _prev) {
+	protected Rectangle getNextBlock(Rectangle img, Rectangle _prev) {
 		Rectangle prev;
 		if (_prev == null) {
 			prev = new Rectangle(0, Math.max(0, img.height - blockSize), blockSize, blockSize);
@@ -146,13 +153,14 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		return img.intersection(prev);
 	}
 
-	private void writeBytesIfChanged(ByteArrayOutputStream inBstream, boolean isKeyFrame, int[][] img, Rectangle area) throws IOException {
+	private void writeBytesIfChanged(ByteArrayOutputStream inBstream, boolean isKeyFrame, int[] img, int width, Rectangle area) throws IOException {
 		boolean changed = isKeyFrame;
 		int count = 0;
 		for (int y = area.y + area.height - 1; y >= area.y; --y) {
 			for (int x = area.x; x < area.x + area.width; ++x) {
-				int pixel = img[x][y];
-				if (!changed && (last == null || pixel != last[x][y])) {
+				int idx = y * width + x;
+				int pixel = img[idx];
+				if (!changed && (last == null || pixel != last[idx])) {
 					changed = true;
 				}
 				areaBuf[count++] = (byte)(pixel & 0xFF);			// Blue component
@@ -176,19 +184,8 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		return ((frame & 0x0F) << 4) + (codec & 0x0F);
 	}
 
-	private static void writeShort(OutputStream os, final int n) throws IOException {
+	protected static void writeShort(OutputStream os, final int n) throws IOException {
 		os.write((n >> 8) & 0xFF);
 		os.write( n       & 0xFF);
 	}
-
-	public static int[][] getImage(ScreenDimensions dim, Rectangle screen, Robot robot) {
-		int[][] buffer = new int[dim.getResizeX()][dim.getResizeY()];
-		BufferedImage image = resize(robot.createScreenCapture(screen), new Rectangle(dim.getResizeX(), dim.getResizeY()));
-		for (int x = 0; x < image.getWidth(); ++x) {
-			for (int y = 0; y < image.getHeight(); ++y) {
-				buffer[x][y] = image.getRGB(x, y);
-			}
-		}
-		return buffer;
-	}
 }
@@ -58,7 +58,13 @@ public class ScreenDimensions {
 	private int resizeY;
 
 	public ScreenDimensions() {
-		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		this(Toolkit.getDefaultToolkit().getScreenSize());
+	}
+
+	/**
+	 * @param screenSize - size of the screen to be shared
+	 */
+	public ScreenDimensions(Dimension screenSize) {
 		ratio = screenSize.getHeight() / screenSize.getWidth();
 		widthMax = (int)screenSize.getWidth();
 		heightMax = (int)screenSize.getHeight();
@@ -25,7 +25,7 @@ import java.awt.Rectangle;
 import java.awt.Robot;
 
 import org.apache.openmeetings.screenshare.CaptureScreen;
-import org.apache.openmeetings.screenshare.ScreenV1Encoder;
+import org.apache.openmeetings.screenshare.BaseScreenEncoder;
 import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
@@ -42,7 +42,7 @@ public class EncodeJob implements Job {
 	private Robot robot;
 	private ScreenDimensions dim;
 	private Rectangle screen = null;
-	private int[][] image = null;
+	private int[] image = null;
 
 	public EncodeJob() {
 		try {
@@ -66,13 +66,13 @@ public class EncodeJob implements Job {
 		if (log.isTraceEnabled()) {
 			start = System.currentTimeMillis();
 		}
-		image = ScreenV1Encoder.getImage(dim, screen, robot);
+		image = BaseScreenEncoder.getImage(dim, screen, robot);
 		if (log.isTraceEnabled()) {
-			log.trace(String.format("encode: Image was captured in %s ms, size %sk", System.currentTimeMillis() - start, 4 * image.length * image[0].length / 1024));
+			log.trace(String.format("encode: Image was captured in %s ms, size %sk", System.currentTimeMillis() - start, 4 * image.length / 1024));
 			start = System.currentTimeMillis();
 		}
 		try {
-			VideoData vData = capture.getEncoder().encode(image);
+			VideoData vData = capture.getEncoder().encode(image, dim.getResizeX(), dim.getResizeY());
 			if (log.isTraceEnabled()) {
 				long now = System.currentTimeMillis();
 				log.trace(String.format("encode: Image was encoded in %s ms, timestamp is %s", now - start, now - capture.getStartTime()));
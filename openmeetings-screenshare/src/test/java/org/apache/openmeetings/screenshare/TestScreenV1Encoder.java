@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.screenshare;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.red5.io.IoConstants.FLAG_FRAMETYPE_INTERFRAME;
+import static org.red5.io.IoConstants.FLAG_FRAMETYPE_KEYFRAME;
+
+import java.awt.Dimension;
+import java.io.IOException;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
+import org.junit.jupiter.api.Test;
+import org.red5.server.net.rtmp.event.VideoData;
+
+public class TestScreenV1Encoder {
+	private static ScreenDimensions getDimensions() {
+		ScreenDimensions dim = new ScreenDimensions(new Dimension(1280, 800));
+		dim.setFps(1); // key frame every 3 frames
+		return dim;
+	}
+
+	/**
+	 * Synthetic compressible frame: gradient with checkers, {@code changed} rectangle is inverted
+	 */
+	private static int[] getFrame(int width, int height, int[] changed) {
+		int[] img = new int[width * height];
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				int pixel = ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | (((x / 8 + y / 8) % 2 == 0) ? 0x33 : 0xCC);
+				if (changed != null && x >= changed[0] && x < changed[0] + changed[2] && y >= changed[1] && y < changed[1] + changed[3]) {
+					pixel = ~pixel & 0xFFFFFF;
+				}
+				img[y * width + x] = pixel;
+			}
+		}
+		return img;
+	}
+
+	private static byte[] getBytes(VideoData vd) {
+		IoBuffer buf = vd.getData().duplicate();
+		byte[] b = new byte[buf.remaining()];
+		buf.get(b);
+		return b;
+	}
+
+	private static void check(int width, int height) throws IOException {
+		ScreenV1Encoder plain = new ScreenV1Encoder(getDimensions());
+		ParallelScreenV1Encoder parallel = new ParallelScreenV1Encoder(getDimensions());
+		int[][] changes = {
+				null // key frame
+				, {10, 10, 5, 5} // single block
+				, {10, 10, 5, 5} // nothing changed
+				, {20, 25, 40, 30} // key frame
+				, {50, 40, 40, 30} // across block borders
+				, {width - 3, height - 3, 3, 3} // last partial block
+				, null // key frame
+		};
+		int[] types = {FLAG_FRAMETYPE_KEYFRAME, FLAG_FRAMETYPE_INTERFRAME, FLAG_FRAMETYPE_INTERFRAME
+				, FLAG_FRAMETYPE_KEYFRAME, FLAG_FRAMETYPE_INTERFRAME, FLAG_FRAMETYPE_INTERFRAME
+				, FLAG_FRAMETYPE_KEYFRAME};
+		for (int i = 0; i < changes.length; ++i) {
+			byte[] expected = getBytes(plain.encode(getFrame(width, height, changes[i]), width, height));
+			byte[] actual = getBytes(parallel.encode(getFrame(width, height, changes[i]), width, height));
+			assertEquals(types[i], (expected[0] >> 4) & 0x0F, "Unexpected type of frame " + i);
+			assertArrayEquals(expected, actual, String.format("Frame %s of %sx%s should be encoded the same way", i, width, height));
+		}
+	}
+
+	@Test
+	public void testSameOutput() throws IOException {
+		check(640, 400);
+	}
+
+	@Test
+	public void testPartialBlocks() throws IOException {
+		check(100, 70);
+	}
+
+	@Test
+	public void testSizeChange() throws IOException {
+		ScreenV1Encoder plain = new ScreenV1Encoder(getDimensions());
+		ParallelScreenV1Encoder parallel = new ParallelScreenV1Encoder(getDimensions());
+		for (int[] size : new int[][] {{64, 64}, {96, 48}, {96, 48}}) {
+			byte[] expected = getBytes(plain.encode(getFrame(size[0], size[1], null), size[0], size[1]));
+			byte[] actual = getBytes(parallel.encode(getFrame(size[0], size[1], null), size[0], size[1]));
+			assertArrayEquals(expected, actual, String.format("Frame of %sx%s should be encoded the same way", size[0], size[1]));
+		}
+	}
+}
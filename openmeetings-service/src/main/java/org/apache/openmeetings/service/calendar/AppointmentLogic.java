@@ -18,14 +18,19 @@
  */
 package org.apache.openmeetings.service.calendar;
 
-import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPOINTMENT_REMINDER_MINUTES;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.DEFAULT_MINUTES_REMINDER_SEND;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getBaseUrl;
 
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.openmeetings.core.notifier.NotifierService;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
@@ -43,6 +48,13 @@ import org.springframework.stereotype.Component;
 @Component
 public class AppointmentLogic {
 	private static final Logger log = LoggerFactory.getLogger(AppointmentLogic.class);
+	private static final int REMINDER_BATCH = 20;
+	private static final int REMINDER_THREADS = 4;
+	private final ExecutorService executor = Executors.newFixedThreadPool(REMINDER_THREADS, r -> {
+		Thread t = new Thread(r, "appointment-reminder");
+		t.setDaemon(true);
+		return t;
+	});
 
 	@Autowired
 	private AppointmentDao appointmentDao;
@@ -71,8 +83,28 @@ public class AppointmentLogic {
 		}
 	}
 
+	private void sendReminders(Appointment a) {
+		sendReminder(a.getOwner(), a);
+		List<MeetingMember> members = a.getMeetingMembers();
+		if (members == null) {
+			log.debug("doScheduledMeetingReminder : no members in meeting!");
+			return;
+		}
+		// Iterate through all MeetingMembers
+		for (MeetingMember mm : members) {
+			log.debug("doScheduledMeetingReminder : Member {}", mm.getUser().getAddress().getEmail());
+
+			Invitation inv = mm.getInvitation();
+
+			sendReminder(mm.getUser(), a, inv);
+		}
+	}
+
 	/**
 	 * Sending Reminder in Simple mail format 5 minutes before Meeting begins
+	 *
+	 * Due appointments are claimed with single update (so reminder is never sent twice),
+	 * notifications are generated in parallel batches
 	 */
 	// ----------------------------------------------------------------------------------------------
 	public void doScheduledMeetingReminder() {
@@ -88,49 +120,41 @@ public class AppointmentLogic {
 			return;
 		}
 
-		long milliseconds = minutesReminderSend * 60 * 1000L;
-		Calendar start = Calendar.getInstance();
-		if (milliseconds < 0) {
-			start.setTimeInMillis(start.getTimeInMillis() + milliseconds);
+		long now = System.currentTimeMillis();
+		long due = now + minutesReminderSend * 60 * 1000L;
+		List<Appointment> list = appointmentDao.claimReminders(new Date(Math.min(now, due)), new Date(due));
+		if (list.isEmpty()) {
+			return;
 		}
-		Calendar end = Calendar.getInstance();
-		if (milliseconds > 0) {
-			end.setTimeInMillis(end.getTimeInMillis() + milliseconds);
+		log.debug("doScheduledMeetingReminder : {} appointments are due", list.size());
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int i = 0; i < list.size(); i += REMINDER_BATCH) {
+			final List<Appointment> batch = list.subList(i, Math.min(i + REMINDER_BATCH, list.size()));
+			tasks.add(executor.submit(() -> {
+				for (Appointment a : batch) {
+					try {
+						sendReminders(a);
+					} catch (Exception e) {
+						log.error("Unexpected error while sending reminders for {}", a, e);
+					}
+				}
+			}));
 		}
-
-		for (Appointment a : appointmentDao.getInRange(start, end)) {
-			// Prevent email from being send twice, even if the cycle takes
-			// very long to send each
-			if (a.isReminderEmailSend()) {
-				continue;
-			}
-			TimeZone ownerZone = getTimeZone(a.getOwner());
-			Calendar aNow = Calendar.getInstance(ownerZone);
-			Calendar aStart = a.startCalendar(ownerZone);
-			aStart.add(Calendar.MINUTE, -minutesReminderSend);
-			if (aStart.after(aNow)) {
-				// to early to send reminder
-				continue;
-			}
-			// Update Appointment to not send invitation twice
-			a.setReminderEmailSend(true);
-			appointmentDao.update(a, null, false);
-
-			List<MeetingMember> members = a.getMeetingMembers();
-
-			sendReminder(a.getOwner(), a);
-			if (members == null) {
-				log.debug("doScheduledMeetingReminder : no members in meeting!");
-				continue;
-			}
-			// Iterate through all MeetingMembers
-			for (MeetingMember mm : members) {
-				log.debug("doScheduledMeetingReminder : Member {}", mm.getUser().getAddress().getEmail());
-
-				Invitation inv = mm.getInvitation();
-
-				sendReminder(mm.getUser(), a, inv);
+		for (Future<?> f : tasks) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				log.error("Unexpected error while sending reminders", e);
 			}
 		}
+		log.debug("doScheduledMeetingReminder : done in {}ms", System.currentTimeMillis() - now);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
 	}
 }
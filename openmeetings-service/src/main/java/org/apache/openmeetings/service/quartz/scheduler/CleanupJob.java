@@ -26,6 +26,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.isInitComplete;
 import java.io.File;
 import java.util.List;
 
+import org.apache.openmeetings.db.dao.file.FileItemDao;
 import org.apache.openmeetings.db.dao.log.ConferenceLogDao;
 import org.apache.openmeetings.db.dao.server.SessiondataDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
@@ -47,6 +48,8 @@ public class CleanupJob extends AbstractJob {
 	private UserDao userDao;
 	@Autowired
 	private ConferenceLogDao confLogDao;
+	@Autowired
+	private FileItemDao fileDao;
 
 	public void setSessionTimeout(long sessionTimeout) {
 		this.sessionTimeout = sessionTimeout;
@@ -142,4 +145,16 @@ public class CleanupJob extends AbstractJob {
 		}
 		confLogDao.clear(confLogTtl);
 	}
+
+	public void reconcileFileUsage() {
+		log.trace("CleanupJob.reconcileFileUsage");
+		if (!isInitComplete()) {
+			return;
+		}
+		try {
+			fileDao.reconcileUsage();
+		} catch (Exception e) {
+			log.error("Unexpected exception while reconciling file usage", e);
+		}
+	}
 }
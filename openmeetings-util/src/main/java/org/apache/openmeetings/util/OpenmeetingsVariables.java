@@ -65,10 +65,16 @@ public class OpenmeetingsVariables {
 	public static final String CONFIG_SMTP_TLS = "mail.smtp.starttls.enable";
 	public static final String CONFIG_SMTP_TIMEOUT_CON = "mail.smtp.connection.timeout";
 	public static final String CONFIG_SMTP_TIMEOUT = "mail.smtp.timeout";
+	public static final String CONFIG_SMTP_POOL_SIZE = "mail.smtp.pool.size";
+	public static final String CONFIG_SMTP_RATE_LIMIT = "mail.smtp.rate.limit";
 	public static final String CONFIG_PATH_IMAGEMAGIC = "path.imagemagick";
 	public static final String CONFIG_PATH_SOX = "path.sox";
 	public static final String CONFIG_PATH_FFMPEG = "path.ffmpeg";
 	public static final String CONFIG_PATH_OFFICE = "path.office";
+	public static final String CONFIG_OFFICE_POOL_SIZE = "office.pool.size";
+	public static final String CONFIG_OFFICE_PORT_START = "office.port.start";
+	public static final String CONFIG_OFFICE_TASK_TIMEOUT = "office.task.timeout";
+	public static final String CONFIG_OFFICE_MAX_TASKS = "office.max.tasks.per.process";
 	public static final String CONFIG_DOCUMENT_DPI = "document.dpi";
 	public static final String CONFIG_DOCUMENT_QUALITY = "document.quality";
 	public static final String CONFIG_CAM_FPS = "cam.fps";
@@ -46,9 +46,12 @@ import javax.websocket.WebSocketContainer;
 import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.core.util.ChatWebSocketHelper;
 import org.apache.openmeetings.core.util.WebSocketHelper;
+import org.apache.openmeetings.core.util.ws.WsFanout;
+import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
+import org.apache.openmeetings.db.dao.record.RecordingChunkDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.server.OAuth2Dao;
 import org.apache.openmeetings.db.dao.user.UserDao;
@@ -62,6 +65,7 @@ import org.apache.openmeetings.db.entity.room.RoomGroup;
 import org.apache.openmeetings.db.entity.user.GroupUser;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.entity.user.User.Type;
+import org.apache.openmeetings.db.util.LocalCache;
 import org.apache.openmeetings.db.util.ws.RoomMessage;
 import org.apache.openmeetings.db.util.ws.TextRoomMessage;
 import org.apache.openmeetings.util.OmFileHelper;
@@ -207,6 +211,10 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 				return;
 			}
 			IClusterWsMessage wsMsg = msg.getMessageObject();
+			if (LocalCache.onMessage(wsMsg) || ChatDao.onMessage(wsMsg) || RecordingChunkDao.onMessage(wsMsg)
+					|| cfgDao.onMessage(wsMsg)) {
+				return;
+			}
 			if (WbWebSocketHelper.send(wsMsg)) {
 				return;
 			}
@@ -366,6 +374,12 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 		}
 	}
 
+	@Override
+	protected void onDestroy() {
+		WsFanout.shutdown();
+		super.onDestroy();
+	}
+
 	private static class NoVersionMapper extends MountedMapper {
 		public NoVersionMapper(final Class<? extends IRequestablePage> pageClass) {
 			this("/", pageClass);
@@ -27,13 +27,11 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -57,7 +55,6 @@ import com.hazelcast.core.IMap;
 import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.EntryRemovedListener;
 import com.hazelcast.map.listener.EntryUpdatedListener;
-import com.hazelcast.query.Predicates;
 
 @Component
 public class ClientManager implements IClientManager {
@@ -70,6 +67,10 @@ public class ClientManager implements IClientManager {
 	private final Map<String, Client> onlineClients = new ConcurrentHashMap<>();
 	private final Map<Long, Set<String>> onlineRooms = new ConcurrentHashMap<>();
 	private final Map<String, ServerInfo> onlineServers = new ConcurrentHashMap<>();
+	// secondary indexes of onlineClients
+	private final Map<Long, Set<String>> uidsByUser = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> uidsBySession = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> uidsByServer = new ConcurrentHashMap<>();
 
 	@Autowired
 	private ConferenceLogDao confLogDao;
@@ -100,7 +101,8 @@ public class ClientManager implements IClientManager {
 
 	@PostConstruct
 	void init() {
-		map().addEntryListener(new ClientListener(), true);
+		IMap<String, Client> map = map();
+		map.addEntryListener(new ClientListener(), true);
 		rooms().addEntryListener(new RoomListener(), true);
 		servers().addEntryListener(new EntryUpdatedListener<String, ServerInfo>() {
 
@@ -110,6 +112,22 @@ public class ClientManager implements IClientManager {
 				onlineServers.put(event.getKey(), event.getValue());
 			}
 		}, true);
+		// listeners are added first, so entries are either seeded here or delivered by events
+		synchronized (onlineClients) {
+			Set<String> seeded = new HashSet<>();
+			for (Client c : map.values()) {
+				if (!onlineClients.containsKey(c.getUid())) {
+					addOnline(c);
+					seeded.add(c.getUid());
+				}
+			}
+			// removal of the seeded client might be delivered before it was seeded
+			seeded.removeAll(map.keySet());
+			seeded.forEach(this::removeOnline);
+		}
+		rooms().forEach(onlineRooms::putIfAbsent);
+		servers().forEach(onlineServers::putIfAbsent);
+		log.debug("Local mirror is seeded with {} clients, {} rooms", onlineClients.size(), onlineRooms.size());
 	}
 
 	public void add(Client c) {
@@ -120,14 +138,50 @@ public class ClientManager implements IClientManager {
 				, "");
 		log.debug("Adding online client: {}, room: {}", c.getUid(), c.getRoom());
 		c.setServerId(Application.get().getServerId());
-		map().put(c.getUid(), c);
-		onlineClients.put(c.getUid(), c);
+		map().set(c.getUid(), c);
+		addOnline(c);
 		mapBySid().put(c.getSid(), c.getUid());
 	}
 
+	private void addOnline(Client c) {
+		onlineClients.put(c.getUid(), c);
+		index(uidsByUser, c.getUserId(), c.getUid());
+		index(uidsBySession, c.getSessionId(), c.getUid());
+		index(uidsByServer, c.getServerId(), c.getUid());
+	}
+
+	private void removeOnline(String uid) {
+		Client c = onlineClients.remove(uid);
+		if (c != null) {
+			unindex(uidsByUser, c.getUserId(), uid);
+			unindex(uidsBySession, c.getSessionId(), uid);
+			unindex(uidsByServer, c.getServerId(), uid);
+		}
+	}
+
+	private static <K> void index(Map<K, Set<String>> idx, K key, String uid) {
+		if (key != null) {
+			idx.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(uid);
+		}
+	}
+
+	private static <K> void unindex(Map<K, Set<String>> idx, K key, String uid) {
+		if (key != null) {
+			idx.computeIfPresent(key, (k, uids) -> {
+				uids.remove(uid);
+				return uids.isEmpty() ? null : uids;
+			});
+		}
+	}
+
+	private static <K> Set<String> lookup(Map<K, Set<String>> idx, K key) {
+		Set<String> uids = key == null ? null : idx.get(key);
+		return uids == null ? Set.of() : uids;
+	}
+
 	@Override
 	public Client update(Client c) {
-		map().put(c.getUid(), c);
+		map().set(c.getUid(), c);
 		synchronized (onlineClients) {
 			onlineClients.get(c.getUid()).merge(c);
 		}
@@ -180,8 +234,8 @@ public class ClientManager implements IClientManager {
 			exitRoom(c);
 			kHandler.remove(c);
 			log.debug("Removing online client: {}, roomId: {}", c.getUid(), c.getRoomId());
-			map().remove(c.getUid());
-			onlineClients.remove(c.getUid());
+			map().delete(c.getUid());
+			removeOnline(c.getUid());
 			mapBySid().remove(c.getSid());
 		}
 	}
@@ -193,11 +247,8 @@ public class ClientManager implements IClientManager {
 	}
 
 	public void serverRemoved(String serverId) {
-		Map<String, Client> clients = map();
-		for (Map.Entry<String, Client> e : clients.entrySet()) {
-			if (serverId.equals(e.getValue().getServerId())) {
-				exit(e.getValue());
-			}
+		for (String uid : new ArrayList<>(lookup(uidsByServer, serverId))) {
+			exit(get(uid));
 		}
 		servers().remove(serverId);
 		onlineServers.remove(serverId);
@@ -277,14 +328,7 @@ public class ClientManager implements IClientManager {
 	}
 
 	public boolean isOnline(Long userId) {
-		boolean isUserOnline = false;
-		for (Map.Entry<String, Client> e : map().entrySet()) {
-			if (e.getValue().sameUserId(userId)) {
-				isUserOnline = true;
-				break;
-			}
-		}
-		return isUserOnline;
+		return !lookup(uidsByUser, userId).isEmpty();
 	}
 
 	@Override
@@ -294,7 +338,14 @@ public class ClientManager implements IClientManager {
 
 	@Override
 	public Collection<Client> listByUser(Long userId) {
-		return map().values(Predicates.equal("userId", userId));
+		List<Client> clients = new ArrayList<>();
+		for (String uid : lookup(uidsByUser, userId)) {
+			Client c = get(uid);
+			if (c != null) {
+				clients.add(c);
+			}
+		}
+		return clients;
 	}
 
 	@Override
@@ -320,12 +371,10 @@ public class ClientManager implements IClientManager {
 
 	public Set<Long> listRoomIds(Long userId) {
 		Set<Long> result = new HashSet<>();
-		for (Entry<Long, Set<String>> me : onlineRooms.entrySet()) {
-			for (String uid : me.getValue()) {
-				Client c = get(uid);
-				if (c != null && c.sameUserId(userId)) {
-					result.add(me.getKey());
-				}
+		for (String uid : lookup(uidsByUser, userId)) {
+			Client c = get(uid);
+			if (c != null && c.getRoomId() != null) {
+				result.add(c.getRoomId());
 			}
 		}
 		return result;
@@ -334,9 +383,8 @@ public class ClientManager implements IClientManager {
 	public boolean isInRoom(long roomId, long userId) {
 		Set<String> clients = onlineRooms.get(roomId);
 		if (clients != null) {
-			for (String uid : clients) {
-				Client c = get(uid);
-				if (c != null && c.sameUserId(userId)) {
+			for (String uid : lookup(uidsByUser, userId)) {
+				if (clients.contains(uid)) {
 					return true;
 				}
 			}
@@ -345,9 +393,14 @@ public class ClientManager implements IClientManager {
 	}
 
 	private List<Client> getByKeys(Long userId, String sessionId) {
-		return map().values().stream()
-				.filter(c -> c.sameUserId(userId) && c.getSessionId().equals(sessionId))
-				.collect(Collectors.toList());
+		List<Client> clients = new ArrayList<>();
+		for (String uid : lookup(uidsBySession, sessionId)) {
+			Client c = get(uid);
+			if (c != null && c.sameUserId(userId)) {
+				clients.add(c);
+			}
+		}
+		return clients;
 	}
 
 	public void invalidate(Long userId, String sessionId) {
@@ -401,7 +454,7 @@ public class ClientManager implements IClientManager {
 				if (onlineClients.containsKey(uid)) {
 					onlineClients.get(uid).merge(event.getValue());
 				} else {
-					onlineClients.put(uid, event.getValue());
+					addOnline(event.getValue());
 				}
 			}
 		}
@@ -416,7 +469,9 @@ public class ClientManager implements IClientManager {
 		@Override
 		public void entryRemoved(EntryEvent<String, Client> event) {
 			log.trace("ClientListener::Remove");
-			onlineClients.remove(event.getKey());
+			synchronized (onlineClients) {
+				removeOnline(event.getKey());
+			}
 		}
 	}
 
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.hazelcast.core.Member;
+
+/**
+ * Makes maintenance jobs to be executed once per cluster
+ *
+ * Every node has the same set of triggers, execution is vetoed on all nodes except
+ * the oldest cluster member. In case this member leaves the cluster (or dies) next
+ * oldest member takes over automatically. Jobs listed in {@link #setLocalJobs(Set)}
+ * are working with node local resources and are executed on every node.
+ */
+public class ClusterJobListener implements TriggerListener, JobListener {
+	private static final Logger log = LoggerFactory.getLogger(ClusterJobListener.class);
+	private final Map<String, JobStats> stats = new ConcurrentHashMap<>();
+	private Set<String> localJobs = new HashSet<>();
+
+	@Autowired
+	private Application app;
+
+	public static class JobStats {
+		private final LongAdder runs = new LongAdder();
+		private final LongAdder skipped = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+		private volatile long lastRun;
+
+		public long getRuns() {
+			return runs.sum();
+		}
+
+		/**
+		 * @return number of executions vetoed since other cluster member is in charge
+		 */
+		public long getSkipped() {
+			return skipped.sum();
+		}
+
+		public long getFailed() {
+			return failed.sum();
+		}
+
+		/**
+		 * @return average run-time in milliseconds
+		 */
+		public double getAvgTime() {
+			long count = runs.sum();
+			return count == 0 ? 0 : (double)total.sum() / count;
+		}
+
+		/**
+		 * @return max run-time in milliseconds
+		 */
+		public long getMaxTime() {
+			return max.get();
+		}
+
+		/**
+		 * @return time of the last execution start, in milliseconds
+		 */
+		public long getLastRun() {
+			return lastRun;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("JobStats [runs: %s, skipped: %s, failed: %s, avg: %.2fms, max: %sms]"
+					, getRuns(), getSkipped(), getFailed(), getAvgTime(), getMaxTime());
+		}
+	}
+
+	public void setLocalJobs(Set<String> localJobs) {
+		this.localJobs = localJobs;
+	}
+
+	@Override
+	public String getName() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * @return {@code true} if current node is the oldest member of the cluster
+	 */
+	public boolean isLeader() {
+		Iterator<Member> iter = app.hazelcast.getCluster().getMembers().iterator();
+		return iter.hasNext() && iter.next().localMember();
+	}
+
+	private JobStats get(String name) {
+		return stats.computeIfAbsent(name, k -> new JobStats());
+	}
+
+	@Override
+	public void triggerFired(Trigger trigger, JobExecutionContext ctx) {
+		// no-op
+	}
+
+	@Override
+	public boolean vetoJobExecution(Trigger trigger, JobExecutionContext ctx) {
+		String name = trigger.getJobKey().getName();
+		if (localJobs.contains(name)) {
+			return false;
+		}
+		boolean veto;
+		try {
+			veto = !isLeader();
+		} catch (Exception e) {
+			// hazelcast is not available (i.e. is being shut down)
+			log.debug("Unable to check cluster leader, job {} is skipped", name, e);
+			veto = true;
+		}
+		if (veto) {
+			log.trace("Job {} is executed by other cluster member", name);
+		}
+		return veto;
+	}
+
+	@Override
+	public void triggerMisfired(Trigger trigger) {
+		// no-op
+	}
+
+	@Override
+	public void triggerComplete(Trigger trigger, JobExecutionContext ctx, CompletedExecutionInstruction instruction) {
+		// no-op
+	}
+
+	@Override
+	public void jobToBeExecuted(JobExecutionContext ctx) {
+		get(ctx.getJobDetail().getKey().getName()).lastRun = System.currentTimeMillis();
+	}
+
+	@Override
+	public void jobExecutionVetoed(JobExecutionContext ctx) {
+		get(ctx.getJobDetail().getKey().getName()).skipped.increment();
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext ctx, JobExecutionException err) {
+		String name = ctx.getJobDetail().getKey().getName();
+		JobStats s = get(name);
+		long time = ctx.getJobRunTime();
+		s.runs.increment();
+		s.total.add(time);
+		s.max.accumulateAndGet(time, Math::max);
+		if (err != null) {
+			s.failed.increment();
+		}
+		log.debug("Job {} is done in {}ms, {}", name, time, s);
+	}
+
+	/**
+	 * @return statistics of the jobs by job name
+	 */
+	public Map<String, JobStats> getStats() {
+		return Map.copyOf(stats);
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.openmeetings.db.dto.room.WbObject;
+import org.apache.openmeetings.db.dto.room.Whiteboard;
+import org.apache.openmeetings.db.dto.room.Whiteboard.ZoomMode;
+import org.apache.openmeetings.db.dto.room.Whiteboards;
+
+import com.github.openjson.JSONObject;
+import com.hazelcast.map.AbstractEntryProcessor;
+
+/**
+ * Single change of the room {@link Whiteboards}
+ *
+ * The change is applied to the cluster-wide snapshot as entry processor (only the change
+ * is being sent to the key owner and backups), version assigned by the owner is used to
+ * replicate the change to other cluster members in order
+ */
+public abstract class WbDelta extends AbstractEntryProcessor<Long, Whiteboards> {
+	private static final long serialVersionUID = 1L;
+	private final Long roomId;
+	private long version;
+
+	protected WbDelta(Long roomId) {
+		super(true);
+		this.roomId = roomId;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public WbDelta setVersion(long version) {
+		this.version = version;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if whole snapshot need to be reloaded
+	 */
+	public boolean isReload() {
+		return false;
+	}
+
+	public abstract void apply(Whiteboards wbs);
+
+	@Override
+	public Object process(Map.Entry<Long, Whiteboards> entry) {
+		Whiteboards wbs = entry.getValue();
+		if (wbs == null) {
+			return null;
+		}
+		apply(wbs);
+		long v = wbs.incrementVersion();
+		entry.setValue(wbs);
+		return v;
+	}
+
+	private abstract static class WbChange extends WbDelta {
+		private static final long serialVersionUID = 1L;
+		private final long wbId;
+
+		WbChange(Long roomId, long wbId) {
+			super(roomId);
+			this.wbId = wbId;
+		}
+
+		@Override
+		public void apply(Whiteboards wbs) {
+			Whiteboard wb = wbs.get(wbId);
+			if (wb != null) {
+				apply(wb);
+			}
+		}
+
+		abstract void apply(Whiteboard wb);
+	}
+
+	public static WbDelta reload(Long roomId) {
+		return new Reload(roomId);
+	}
+
+	public static WbDelta putObjects(Long roomId, long wbId, Collection<JSONObject> objs) {
+		List<WbObject> list = new ArrayList<>(objs.size());
+		for (JSONObject o : objs) {
+			list.add(new WbObject(o.getString("uid"), o));
+		}
+		return new PutObjects(roomId, wbId, list);
+	}
+
+	public static WbDelta removeObjects(Long roomId, long wbId, Collection<String> uids) {
+		return new RemoveObjects(roomId, wbId, new ArrayList<>(uids));
+	}
+
+	public static WbDelta clearSlide(Long roomId, long wbId, int slide) {
+		return new ClearSlide(roomId, wbId, slide);
+	}
+
+	public static WbDelta clear(Long roomId, long wbId) {
+		return new Clear(roomId, wbId);
+	}
+
+	public static WbDelta props(Long roomId, Whiteboard wb) {
+		return new Props(roomId, wb);
+	}
+
+	public static WbDelta addWb(Long roomId, Whiteboard wb) {
+		return new AddWb(roomId, wb);
+	}
+
+	public static WbDelta removeWb(Long roomId, long wbId) {
+		return new RemoveWb(roomId, wbId);
+	}
+
+	public static WbDelta activate(Long roomId, long wbId) {
+		return new Activate(roomId, wbId);
+	}
+
+	private static class Reload extends WbDelta {
+		private static final long serialVersionUID = 1L;
+
+		Reload(Long roomId) {
+			super(roomId);
+		}
+
+		@Override
+		public boolean isReload() {
+			return true;
+		}
+
+		@Override
+		public void apply(Whiteboards wbs) {
+			//no-op
+		}
+	}
+
+	private static class PutObjects extends WbChange {
+		private static final long serialVersionUID = 1L;
+		private final List<WbObject> objs;
+
+		PutObjects(Long roomId, long wbId, List<WbObject> objs) {
+			super(roomId, wbId);
+			this.objs = objs;
+		}
+
+		@Override
+		void apply(Whiteboard wb) {
+			for (WbObject o : objs) {
+				wb.put(o);
+			}
+		}
+	}
+
+	private static class RemoveObjects extends WbChange {
+		private static final long serialVersionUID = 1L;
+		private final List<String> uids;
+
+		RemoveObjects(Long roomId, long wbId, List<String> uids) {
+			super(roomId, wbId);
+			this.uids = uids;
+		}
+
+		@Override
+		void apply(Whiteboard wb) {
+			for (String uid : uids) {
+				wb.remove(uid);
+			}
+		}
+	}
+
+	private static class ClearSlide extends WbChange {
+		private static final long serialVersionUID = 1L;
+		private final int slide;
+
+		ClearSlide(Long roomId, long wbId, int slide) {
+			super(roomId, wbId);
+			this.slide = slide;
+		}
+
+		@Override
+		void apply(Whiteboard wb) {
+			wb.clearSlide(slide);
+		}
+	}
+
+	private static class Clear extends WbChange {
+		private static final long serialVersionUID = 1L;
+
+		Clear(Long roomId, long wbId) {
+			super(roomId, wbId);
+		}
+
+		@Override
+		void apply(Whiteboard wb) {
+			wb.clear();
+		}
+	}
+
+	private static class Props extends WbChange {
+		private static final long serialVersionUID = 1L;
+		private final String name;
+		private final int slide;
+		private final int width;
+		private final int height;
+		private final double zoom;
+		private final ZoomMode zoomMode;
+
+		Props(Long roomId, Whiteboard src) {
+			super(roomId, src.getId());
+			name = src.getName();
+			slide = src.getSlide();
+			width = src.getWidth();
+			height = src.getHeight();
+			zoom = src.getZoom();
+			zoomMode = src.getZoomMode();
+		}
+
+		@Override
+		void apply(Whiteboard wb) {
+			wb.setName(name);
+			wb.setSlide(slide);
+			wb.setWidth(width);
+			wb.setHeight(height);
+			wb.setZoom(zoom);
+			wb.setZoomMode(zoomMode);
+		}
+	}
+
+	private static class AddWb extends WbDelta {
+		private static final long serialVersionUID = 1L;
+		private final Whiteboard wb;
+
+		AddWb(Long roomId, Whiteboard wb) {
+			super(roomId);
+			this.wb = wb;
+		}
+
+		@Override
+		public void apply(Whiteboards wbs) {
+			wbs.update(wb);
+		}
+	}
+
+	private static class RemoveWb extends WbDelta {
+		private static final long serialVersionUID = 1L;
+		private final long wbId;
+
+		RemoveWb(Long roomId, long wbId) {
+			super(roomId);
+			this.wbId = wbId;
+		}
+
+		@Override
+		public void apply(Whiteboards wbs) {
+			wbs.getWhiteboards().remove(wbId);
+		}
+	}
+
+	private static class Activate extends WbDelta {
+		private static final long serialVersionUID = 1L;
+		private final long wbId;
+
+		Activate(Long roomId, long wbId) {
+			super(roomId);
+			this.wbId = wbId;
+		}
+
+		@Override
+		public void apply(Whiteboards wbs) {
+			wbs.setActiveWb(wbId);
+		}
+	}
+}
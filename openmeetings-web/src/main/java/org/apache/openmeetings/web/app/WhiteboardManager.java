@@ -24,6 +24,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultLang;
 import static org.apache.openmeetings.web.room.wb.WbWebSocketHelper.sendWbAll;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,14 +57,21 @@ import org.springframework.stereotype.Component;
 import com.github.openjson.JSONArray;
 import com.github.openjson.JSONObject;
 import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.IMap;
-import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.core.ITopic;
 import com.hazelcast.map.listener.EntryRemovedListener;
-import com.hazelcast.map.listener.EntryUpdatedListener;
 
 /**
  * Hazelcast based Whiteboard manager
  *
+ * Whole {@link Whiteboards} are stored in the map only on creation, all further changes are
+ * replicated as {@link WbDelta}: applied to the map value by entry processor and published
+ * to other cluster members via topic. Map value is always up-to-date compacted snapshot,
+ * it is being loaded on demand and in case some change was missed.
+ * Local copy applies changes in order of versions assigned by the key owner, see {@link Sequencer}.
+ * Snapshot is created with {@link IMap#putIfAbsent(Object, Object)}, so all members use the same instance.
+ *
  * @author sebawagner
  *
  */
@@ -71,7 +79,11 @@ import com.hazelcast.map.listener.EntryUpdatedListener;
 public class WhiteboardManager implements IWhiteboardManager {
 	private static final Logger log = LoggerFactory.getLogger(WhiteboardManager.class);
 	private final Map<Long, Whiteboards> onlineWbs = new ConcurrentHashMap<>();
+	private final Map<Long, Sequencer> sequencers = new ConcurrentHashMap<>();
+	private static final int MAX_PENDING = 100;
+	private static final long GAP_TIMEOUT = TimeUnit.SECONDS.toNanos(2);
 	private static final String WBS_KEY = "WBS_KEY";
+	private static final String WBS_TOPIC_KEY = "WBS_TOPIC_KEY";
 
 	@Autowired
 	private Application app;
@@ -80,10 +92,18 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return app.hazelcast.getMap(WBS_KEY);
 	}
 
+	private ITopic<WbDelta> topic() {
+		return app.hazelcast.getTopic(WBS_TOPIC_KEY);
+	}
+
 	@PostConstruct
 	void init() {
-		map().addEntryListener(new WbListener(), true);
-		map().entrySet().forEach(e -> onlineWbs.put(e.getKey(), e.getValue()));
+		map().addEntryListener(new WbListener(), false);
+		topic().addMessageListener(msg -> {
+			if (!msg.getPublishingMember().localMember()) {
+				onDelta(msg.getMessageObject());
+			}
+		});
 	}
 
 	private static String getDefaultName(Long langId, int num) {
@@ -94,8 +114,61 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return sb.toString();
 	}
 
-	private boolean contains(Long roomId) {
-		return onlineWbs.containsKey(roomId);
+	/**
+	 * Local copy is returned if available, otherwise snapshot is loaded from the map
+	 *
+	 * @param roomId - id of the room
+	 * @return whiteboards of the room or {@code null}
+	 */
+	private Whiteboards load(Long roomId) {
+		Whiteboards wbs = onlineWbs.get(roomId);
+		if (wbs != null) {
+			Sequencer seq = sequencers.get(roomId);
+			if (seq != null && seq.wbs == wbs && seq.isStale()) {
+				log.debug("Change of whiteboards of room {} was lost, will be reloaded", roomId);
+				drop(roomId, wbs);
+				wbs = null;
+			}
+		}
+		if (wbs == null) {
+			// remote call is performed outside of the local map lock
+			Whiteboards loaded = map().get(roomId);
+			if (loaded != null) {
+				wbs = onlineWbs.putIfAbsent(roomId, loaded);
+				if (wbs == null) {
+					wbs = loaded;
+				}
+			}
+		}
+		return wbs;
+	}
+
+	/**
+	 * Snapshot is stored only in case there is none, otherwise snapshot stored by
+	 * other thread or cluster member is used
+	 *
+	 * @param wbs - newly created whiteboards
+	 * @return whiteboards to be used
+	 */
+	private Whiteboards create(Whiteboards wbs) {
+		final Long roomId = wbs.getRoomId();
+		Whiteboards stored = map().putIfAbsent(roomId, wbs);
+		Whiteboards cur = stored == null ? wbs : stored;
+		Whiteboards local = onlineWbs.putIfAbsent(roomId, cur);
+		return local == null ? cur : local;
+	}
+
+	private void drop(Long roomId, Whiteboards wbs) {
+		if (wbs == null) {
+			onlineWbs.remove(roomId);
+			sequencers.remove(roomId);
+		} else if (onlineWbs.remove(roomId, wbs)) {
+			sequencers.computeIfPresent(roomId, (id, seq) -> seq.wbs == wbs ? null : seq);
+		}
+	}
+
+	private Sequencer sequencer(Long roomId, Whiteboards wbs) {
+		return sequencers.compute(roomId, (id, seq) -> seq == null || seq.wbs != wbs ? new Sequencer(wbs) : seq);
 	}
 
 	@Override
@@ -104,9 +177,9 @@ public class WhiteboardManager implements IWhiteboardManager {
 			return;
 		}
 		try {
-			if (contains(roomId) && map().tryLock(roomId, 1, TimeUnit.SECONDS)) {
+			if (map().tryLock(roomId, 1, TimeUnit.SECONDS)) {
 				try {
-					onlineWbs.remove(roomId);
+					drop(roomId, null);
 					map().delete(roomId);
 				} finally {
 					map().unlock(roomId);
@@ -133,19 +206,20 @@ public class WhiteboardManager implements IWhiteboardManager {
 		if (roomId == null) {
 			return null;
 		}
-		Whiteboards wbs = onlineWbs.get(roomId);
+		Whiteboards wbs = load(roomId);
 		if (wbs == null) {
-			wbs = new Whiteboards(roomId);
+			Whiteboards created = new Whiteboards(roomId);
 			if (consumer != null) {
-				consumer.accept(wbs);
+				consumer.accept(created);
 			}
+			wbs = create(created);
 		}
 		return wbs;
 	}
 
 	public Map<Long, List<BaseFileItem>> get(Room r, Long langId) {
 		Map<Long, List<BaseFileItem>> result = new HashMap<>();
-		if (!contains(r.getId()) && r.getFiles() != null && !r.getFiles().isEmpty()) {
+		if (r.getFiles() != null && !r.getFiles().isEmpty() && load(r.getId()) == null) {
 			if (map().tryLock(r.getId())) {
 				try {
 					TreeMap<Long, List<BaseFileItem>> files = new TreeMap<>();
@@ -157,13 +231,15 @@ public class WhiteboardManager implements IWhiteboardManager {
 						}
 						bfl.add(rf.getFile());
 					}
-					Whiteboards wbs = getOrCreate(r.getId(), null);
+					Whiteboards wbs = new Whiteboards(r.getId());
 					for (Map.Entry<Long, List<BaseFileItem>> e : files.entrySet()) {
 						Whiteboard wb = add(wbs, langId);
 						wbs.setActiveWb(wb.getId());
 						result.put(wb.getId(), e.getValue());
 					}
-					update(wbs);
+					if (create(wbs) != wbs) {
+						result.clear(); // whiteboards were created concurrently
+					}
 				} finally {
 					map().unlock(r.getId());
 				}
@@ -177,7 +253,6 @@ public class WhiteboardManager implements IWhiteboardManager {
 			if (inWbs.getWhiteboards().isEmpty()) {
 				Whiteboard wb = add(inWbs, langId);
 				inWbs.setActiveWb(wb.getId());
-				update(inWbs);
 			}
 		});
 		if (wbs == null) {
@@ -194,7 +269,7 @@ public class WhiteboardManager implements IWhiteboardManager {
 	public Whiteboard add(long roomId, Long langId) {
 		Whiteboards wbs = get(roomId);
 		Whiteboard wb = add(wbs, langId);
-		update(wbs);
+		update(WbDelta.addWb(roomId, wb));
 		return wb;
 	}
 
@@ -209,7 +284,7 @@ public class WhiteboardManager implements IWhiteboardManager {
 		Whiteboard wb = wbs.get(wbId);
 		if (wb != null) {
 			wb.clear();
-			update(wbs);
+			update(WbDelta.clear(roomId, wbId));
 		}
 		return wb;
 	}
@@ -233,7 +308,7 @@ public class WhiteboardManager implements IWhiteboardManager {
 		Whiteboard wb = get(roomId).get(wbId);
 		JSONArray arr = wb.clearSlide(slide);
 		if (arr.length() != 0) {
-			update(roomId, wb);
+			update(WbDelta.clearSlide(roomId, wbId, slide));
 			if (consumer != null) {
 				consumer.accept(wb, arr);
 			}
@@ -246,48 +321,212 @@ public class WhiteboardManager implements IWhiteboardManager {
 	public Whiteboard remove(long roomId, Long wbId) {
 		Whiteboards wbs = get(roomId);
 		Whiteboard wb = wbs.getWhiteboards().remove(wbId);
-		update(wbs);
+		update(WbDelta.removeWb(roomId, wbId));
 		return wb;
 	}
 
 	public void activate(long roomId, Long wbId) {
 		Whiteboards wbs = get(roomId);
 		wbs.setActiveWb(wbId);
-		update(wbs);
+		update(WbDelta.activate(roomId, wbId));
 	}
 
+	/**
+	 * Updates properties (name, slide, size, zoom) of the whiteboard
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard to be updated
+	 */
 	public void update(long roomId, Whiteboard wb) {
 		Whiteboards wbs = get(roomId);
 		wbs.update(wb);
-		update(wbs);
+		update(WbDelta.props(roomId, wb));
 	}
 
-	private void update(Whiteboards wbs) {
-		onlineWbs.put(wbs.getRoomId(), wbs);
-		new Thread(() -> map().put(wbs.getRoomId(), wbs)).start();
+	/**
+	 * Adds or replaces objects of the whiteboard
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard to be updated
+	 * @param objs - objects to be stored
+	 */
+	public void putObjects(long roomId, Whiteboard wb, Collection<JSONObject> objs) {
+		if (objs.isEmpty()) {
+			return;
+		}
+		for (JSONObject o : objs) {
+			wb.put(o.getString("uid"), o);
+		}
+		update(WbDelta.putObjects(roomId, wb.getId(), objs));
 	}
 
-	public class WbListener implements
-			EntryAddedListener<Long, Whiteboards>
-			, EntryUpdatedListener<Long, Whiteboards>
-			, EntryRemovedListener<Long, Whiteboards>
-	{
-		@Override
-		public void entryAdded(EntryEvent<Long, Whiteboards> event) {
-			log.trace("WbListener::Add");
-			onlineWbs.put(event.getKey(), event.getValue());
+	/**
+	 * Removes objects from the whiteboard
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard to be updated
+	 * @param uids - uids of objects to be removed
+	 * @return objects being removed
+	 */
+	public List<JSONObject> removeObjects(long roomId, Whiteboard wb, Collection<String> uids) {
+		List<JSONObject> removed = new ArrayList<>();
+		for (String uid : uids) {
+			JSONObject o = wb.remove(uid);
+			if (o != null) {
+				removed.add(o);
+			}
+		}
+		if (!removed.isEmpty()) {
+			update(WbDelta.removeObjects(roomId, wb.getId(), uids));
 		}
+		return removed;
+	}
 
-		@Override
-		public void entryUpdated(EntryEvent<Long, Whiteboards> event) {
-			log.trace("WbListener::Update");
-			onlineWbs.put(event.getKey(), event.getValue());
+	/**
+	 * Local copy is already modified, the change is being applied to the map
+	 * and is published to other members with the version assigned by key owner
+	 */
+	private void update(WbDelta d) {
+		final Long roomId = d.getRoomId();
+		Whiteboards cur = onlineWbs.get(roomId);
+		if (cur != null) {
+			sequencer(roomId, cur).submitted(d);
 		}
+		map().submitToKey(roomId, d, new ExecutionCallback<Object>() {
+			@Override
+			public void onResponse(Object response) {
+				Whiteboards wbs = onlineWbs.get(roomId);
+				if (response == null) {
+					// there is no snapshot in the map (whiteboards were reset), will be re-created on demand
+					if (wbs != null) {
+						sequencer(roomId, wbs).failed(d);
+						drop(roomId, wbs);
+					}
+					return;
+				}
+				d.setVersion((Long)response);
+				if (wbs != null) {
+					sequence(roomId, wbs, d);
+				}
+				topic().publish(d);
+			}
 
+			@Override
+			public void onFailure(Throwable t) {
+				log.error("Unexpected error while updating whiteboards", t);
+				// local copy contains the change the map doesn't have
+				drop(roomId, onlineWbs.get(roomId));
+			}
+		});
+	}
+
+	private void sequence(Long roomId, Whiteboards wbs, WbDelta d) {
+		if (!sequencer(roomId, wbs).add(d)) {
+			log.debug("Whiteboards of room {} are outdated, will be reloaded", roomId);
+			drop(roomId, wbs);
+		}
+	}
+
+	private void onDelta(WbDelta d) {
+		final Long roomId = d.getRoomId();
+		if (d.isReload()) {
+			drop(roomId, null);
+			return;
+		}
+		Whiteboards wbs = onlineWbs.get(roomId);
+		if (wbs == null) {
+			return; // will be loaded from the map on demand
+		}
+		sequence(roomId, wbs, d);
+	}
+
+	public class WbListener implements EntryRemovedListener<Long, Whiteboards> {
 		@Override
 		public void entryRemoved(EntryEvent<Long, Whiteboards> event) {
 			log.trace("WbListener::Remove");
-			onlineWbs.remove(event.getKey());
+			drop(event.getKey(), null);
+		}
+	}
+
+	/**
+	 * Applies changes to the local copy strictly in order of versions assigned by the key owner
+	 *
+	 * Local changes are applied immediately (before the version is known), so they are
+	 * re-applied on top of every remote change ordered before them. Changes are idempotent,
+	 * so the local copy ends up in the same state as the map value.
+	 */
+	private static class Sequencer {
+		private final Whiteboards wbs;
+		// local changes not yet in sequence, in order they were made
+		private final List<WbDelta> local = new ArrayList<>();
+		// changes waiting for preceding versions
+		private final TreeMap<Long, WbDelta> pending = new TreeMap<>();
+		// time the oldest gap in versions was detected
+		private long gapSince;
+
+		Sequencer(Whiteboards wbs) {
+			this.wbs = wbs;
+		}
+
+		void submitted(WbDelta d) {
+			synchronized (wbs) {
+				local.add(d);
+			}
+		}
+
+		void failed(WbDelta d) {
+			synchronized (wbs) {
+				local.remove(d);
+			}
+		}
+
+		/**
+		 * @param d - versioned change
+		 * @return {@code false} in case local copy need to be reloaded
+		 */
+		boolean add(WbDelta d) {
+			synchronized (wbs) {
+				if (d.getVersion() <= wbs.getVersion()) {
+					local.remove(d);
+					return true; // already part of the snapshot
+				}
+				pending.put(d.getVersion(), d);
+				final long prevVersion = wbs.getVersion();
+				boolean rebase = false;
+				for (Map.Entry<Long, WbDelta> e = pending.firstEntry()
+						; e != null && e.getKey() == wbs.getVersion() + 1
+						; e = pending.firstEntry())
+				{
+					pending.pollFirstEntry();
+					WbDelta next = e.getValue();
+					if (!local.remove(next)) {
+						next.apply(wbs);
+						rebase |= !local.isEmpty();
+					}
+					wbs.setVersion(e.getKey());
+				}
+				if (rebase) {
+					for (WbDelta l : local) {
+						l.apply(wbs);
+					}
+				}
+				if (pending.isEmpty()) {
+					gapSince = 0;
+				} else if (gapSince == 0 || prevVersion != wbs.getVersion()) {
+					gapSince = System.nanoTime();
+				}
+				// too many changes are waiting, some change is lost
+				return pending.size() < MAX_PENDING && !isStale();
+			}
+		}
+
+		/**
+		 * @return {@code true} in case preceding change was not received during {@link #GAP_TIMEOUT}
+		 */
+		boolean isStale() {
+			synchronized (wbs) {
+				return !pending.isEmpty() && System.nanoTime() - gapSince > GAP_TIMEOUT;
+			}
 		}
 	}
 }
@@ -149,14 +149,14 @@ public class FolderPanel extends Panel implements IDraggableListener, IDroppable
 		if (pid != null && pid.equals(f.getId())) {
 			return;
 		}
-		f.setParentId(pid);
-		f.setOwnerId(p.getOwnerId());
-		f.setRoomId(p.getRoomId());
-		f.setGroupId(p.getGroupId());
 		if (f instanceof Recording) {
+			f.setParentId(pid);
+			f.setOwnerId(p.getOwnerId());
+			f.setRoomId(p.getRoomId());
+			f.setGroupId(p.getGroupId());
 			recDao.update((Recording)f);
 		} else {
-			fileDao.update((FileItem)f);
+			fileDao.move((FileItem)f, p);
 		}
 		treePanel.updateNode(target, f);
 	}
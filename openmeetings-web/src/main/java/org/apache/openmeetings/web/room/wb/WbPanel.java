@@ -41,6 +41,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -56,6 +57,7 @@ import javax.imageio.ImageIO;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.openmeetings.db.dao.file.FileItemDao;
+import org.apache.openmeetings.db.dto.room.WbObject;
 import org.apache.openmeetings.db.dto.room.Whiteboard;
 import org.apache.openmeetings.db.dto.room.Whiteboard.ZoomMode;
 import org.apache.openmeetings.db.dto.room.Whiteboards;
@@ -249,9 +251,10 @@ public class WbPanel extends AbstractWbPanel {
 				JSONArray arr = new JSONArray();
 				for (Entry<Long, Whiteboard> entry : wbm.list(roomId)) {
 					Whiteboard wb = entry.getValue();
-					for (JSONObject o : wb.list()) {
-						String ft = o.optString(ATTR_FILE_TYPE);
+					for (WbObject wo : wb.objects()) {
+						String ft = wo.getFileType();
 						if (BaseFileItem.Type.RECORDING.name().equals(ft) || BaseFileItem.Type.VIDEO.name().equals(ft)) {
+							JSONObject o = wo.get();
 							JSONObject status = o.optJSONObject(PARAM_STATUS);
 							if (status == null) {
 								continue;
@@ -347,8 +350,7 @@ public class WbPanel extends AbstractWbPanel {
 				{
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONObject o = obj.getJSONObject("obj");
-					wb.put(o.getString("uid"), o);
-					wbm.update(roomId, wb);
+					wbm.putObjects(roomId, wb, List.of(o));
 					addUndo(wb.getId(), new UndoObject(UndoObject.Type.add, o));
 					sendWbOthers(WbAction.createObj, obj);
 				}
@@ -358,17 +360,18 @@ public class WbPanel extends AbstractWbPanel {
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONArray arr = obj.getJSONArray("obj");
 					JSONArray undo = new JSONArray();
+					List<JSONObject> modified = new ArrayList<>();
 					for (int i = 0; i < arr.length(); ++i) {
 						JSONObject oi = arr.getJSONObject(i);
 						String uid = oi.getString("uid");
 						JSONObject po = wb.get(uid);
 						if (po != null) {
 							undo.put(po);
-							wb.put(uid, oi);
+							modified.add(oi);
 						}
 					}
 					if (arr.length() != 0) {
-						wbm.update(roomId, wb);
+						wbm.putObjects(roomId, wb, modified);
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.modify, undo));
 					}
 					sendWbOthers(WbAction.modifyObj, obj);
@@ -378,17 +381,13 @@ public class WbPanel extends AbstractWbPanel {
 				{
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONArray arr = obj.getJSONArray("obj");
-					JSONArray undo = new JSONArray();
+					List<String> uids = new ArrayList<>();
 					for (int i = 0; i < arr.length(); ++i) {
-						JSONObject oi = arr.getJSONObject(i);
-						JSONObject u = wb.remove(oi.getString("uid"));
-						if (u != null) {
-							undo.put(u);
-						}
+						uids.add(arr.getJSONObject(i).getString("uid"));
 					}
-					if (undo.length() != 0) {
-						wbm.update(roomId, wb);
-						addUndo(wb.getId(), new UndoObject(UndoObject.Type.remove, undo));
+					List<JSONObject> removed = wbm.removeObjects(roomId, wb, uids);
+					if (!removed.isEmpty()) {
+						addUndo(wb.getId(), new UndoObject(UndoObject.Type.remove, new JSONArray(removed)));
 					}
 					sendWbAll(WbAction.deleteObj, obj);
 				}
@@ -414,30 +413,20 @@ public class WbPanel extends AbstractWbPanel {
 							case add:
 							{
 								JSONObject o = new JSONObject(uo.getObject());
-								wb.remove(o.getString("uid"));
-								wbm.update(roomId, wb);
+								wbm.removeObjects(roomId, wb, List.of(o.getString("uid")));
 								sendWbAll(WbAction.deleteObj, obj.put("obj", new JSONArray().put(o)));
 							}
 								break;
 							case remove:
 							{
-								JSONArray arr = new JSONArray(uo.getObject());
-								for (int i  = 0; i < arr.length(); ++i) {
-									JSONObject o = arr.getJSONObject(i);
-									wb.put(o.getString("uid"), o);
-								}
-								wbm.update(roomId, wb);
+								wbm.putObjects(roomId, wb, toList(new JSONArray(uo.getObject())));
 								sendWbAll(WbAction.createObj, obj.put("obj", new JSONArray(uo.getObject())));
 							}
 								break;
 							case modify:
 							{
 								JSONArray arr = new JSONArray(uo.getObject());
-								for (int i  = 0; i < arr.length(); ++i) {
-									JSONObject o = arr.getJSONObject(i);
-									wb.put(o.getString("uid"), o);
-								}
-								wbm.update(roomId, wb);
+								wbm.putObjects(roomId, wb, toList(arr));
 								sendWbAll(WbAction.modifyObj, obj.put("obj", arr));
 							}
 								break;
@@ -453,7 +442,7 @@ public class WbPanel extends AbstractWbPanel {
 					if (po != null && "Video".equals(po.getString(ATTR_OMTYPE))) {
 						JSONObject ns = obj.getJSONObject(PARAM_STATUS);
 						po.put(PARAM_STATUS, ns.put(PARAM_UPDATED, System.currentTimeMillis()));
-						wbm.update(roomId, wb.put(uid, po));
+						wbm.putObjects(roomId, wb, List.of(po));
 						obj.put(ATTR_SLIDE, po.getInt(ATTR_SLIDE));
 						sendWbAll(WbAction.videoStatus, obj);
 					}
@@ -498,6 +487,14 @@ public class WbPanel extends AbstractWbPanel {
 		return file;
 	}
 
+	private static List<JSONObject> toList(JSONArray arr) {
+		List<JSONObject> list = new ArrayList<>(arr.length());
+		for (int i = 0; i < arr.length(); ++i) {
+			list.add(arr.getJSONObject(i));
+		}
+		return list;
+	}
+
 	private static JSONArray getArray(JSONObject wb, Function<JSONObject, JSONObject> postprocess) {
 		JSONObject items = wb.getJSONObject(ITEMS_KEY);
 		JSONArray arr = new JSONArray();
@@ -537,13 +534,13 @@ public class WbPanel extends AbstractWbPanel {
 					File f = fi.getFile();
 					if (f.exists() && f.isFile()) {
 						try (BufferedReader br = Files.newBufferedReader(f.toPath())) {
-							final boolean[] updated = {false};
+							final List<JSONObject> loaded = new ArrayList<>();
 							JSONArray arr = getArray(new JSONObject(new JSONTokener(br)), o -> {
-									wb.put(o.getString("uid"), o);
-									updated[0] = true;
+									loaded.add(o);
 									return addFileUrl(rp.getClient(), wbs.getUid(), o, bf -> updateWbSize(wb, bf));
 								});
-							if (updated[0]) {
+							if (!loaded.isEmpty()) {
+								wbm.putObjects(roomId, wb, loaded);
 								wbm.update(roomId, wb);
 							}
 							sendWbAll(WbAction.setSize, wb.getAddJson());
@@ -581,7 +578,7 @@ public class WbPanel extends AbstractWbPanel {
 					if (clean) {
 						wbm.clearAll(roomId, wb.getId(), addUndo);
 					}
-					wb.put(wuid, file);
+					wbm.putObjects(roomId, wb, List.of(file));
 					updateWbSize(wb, fi);
 					wbm.update(roomId, wb);
 					sendWbAll(WbAction.setSize, wb.getAddJson());
@@ -651,8 +648,9 @@ public class WbPanel extends AbstractWbPanel {
 			Whiteboard wb = entry.getValue();
 			sb.append(new StringBuilder("WbArea.create(").append(wb.getAddJson()).append(");"));
 			JSONArray arr = new JSONArray();
-			for (JSONObject o : wb.list()) {
-				arr.put(addFileUrl(cl, wbs.getUid(), o));
+			for (WbObject wo : wb.objects()) {
+				// file URLs are added to the copy of the object
+				arr.put(wo.isFile() ? addFileUrl(cl, wbs.getUid(), wo.get()) : wo.get());
 			}
 			sb.append("WbArea.load(").append(getObjWbJson(entry.getKey(), arr).toString(new NullStringer())).append(");");
 		}
@@ -23,6 +23,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM__SRC;
 
 import java.util.function.Predicate;
 
+import org.apache.openmeetings.core.util.MessageTemplate;
 import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
@@ -135,27 +136,26 @@ public class WbWebSocketHelper extends WebSocketHelper {
 		sendWbFile(roomId, wbId, ruid, file, fi, true);
 	}
 
-	//This is required cause WebSocketHelper will send message async
-	private static String patchUrl(String url, Client c) {
-		return String.format("%s&uid=%s", url, c.getUid());
+	private static String patchUrl(String url) {
+		return String.format("%s&uid=%s", url, MessageTemplate.PLACEHOLDER);
 	}
 
-	private static JSONObject patchUrls(BaseFileItem fi, Client c, JSONObject _f) {
-		JSONObject f = new JSONObject(_f.toString()); // deep copy to ensure thread safety
+	//uid is substituted for each client in the room, file JSON is rendered only once
+	private static JSONObject patchUrls(BaseFileItem fi, JSONObject f) {
 		switch (fi.getType()) {
 			case VIDEO:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
-				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
+				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER)));
 				break;
 			case RECORDING:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
-				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
+				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER)));
 				break;
 			case PRESENTATION:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
 				break;
 			default:
-				f.put(PARAM_SRC, patchUrl(f.getString(PARAM_SRC), c));
+				f.put(PARAM_SRC, patchUrl(f.getString(PARAM_SRC)));
 				break;
 		}
 		return f;
@@ -168,19 +168,21 @@ public class WbWebSocketHelper extends WebSocketHelper {
 		final JSONObject _f = addFileUrl(ruid, file, fi, null);
 		WebSocketHelper.sendRoom(
 				roomId
-				, new JSONObject().put("type", "wb")
-				, null
-				, (o, c) -> o.put("func", WbAction.createObj.name())
-							.put("param", getObjWbJson(wbId, patchUrls(fi, c, _f))));
+				, new MessageTemplate(new JSONObject()
+						.put("type", "wb")
+						.put("func", WbAction.createObj.name())
+						.put("param", getObjWbJson(wbId, patchUrls(fi, _f))))
+				, null);
 	}
 
 	private static void sendWb(Long roomId, WbAction meth, JSONObject obj, Predicate<Client> check) {
 		WebSocketHelper.sendRoom(
 				roomId
-				, new JSONObject().put("type", "wb")
-				, check
-				, (o, c) -> o.put("func", meth.name())
-							.put("param", obj)
-			);
+				, new JSONObject()
+						.put("type", "wb")
+						.put("func", meth.name())
+						.put("param", obj)
+						.toString(new NullStringer())
+				, check);
 	}
 }
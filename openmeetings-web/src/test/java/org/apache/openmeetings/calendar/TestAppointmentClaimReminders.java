@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.calendar;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.AbstractJUnitDefaults;
+import org.apache.openmeetings.db.entity.calendar.Appointment;
+import org.apache.openmeetings.db.entity.calendar.Appointment.Reminder;
+import org.junit.jupiter.api.Test;
+
+public class TestAppointmentClaimReminders extends AbstractJUnitDefaults {
+	private static final long FIVE_MINUTES = TimeUnit.MINUTES.toMillis(5);
+
+	private Appointment create(long startOffset, Reminder reminder) {
+		long now = System.currentTimeMillis();
+		Appointment a = getAppointment(new Date(now + startOffset), new Date(now + startOffset + ONE_HOUR));
+		a.setReminder(reminder);
+		return createAppointment(a);
+	}
+
+	private static boolean contains(List<Appointment> list, Appointment a) {
+		return list.stream().anyMatch(o -> a.getId().equals(o.getId()));
+	}
+
+	@Test
+	public void testClaimOnce() {
+		Appointment a = create(FIVE_MINUTES, Reminder.ICAL);
+		Date now = new Date();
+		Date due = new Date(now.getTime() + 2 * FIVE_MINUTES);
+
+		List<Appointment> claimed = appointmentDao.claimReminders(now, due);
+		assertTrue(contains(claimed, a), "Due appointment should be claimed");
+		assertTrue(claimed.stream().allMatch(Appointment::isReminderEmailSend), "Claimed appointments should be marked as reminded");
+
+		assertFalse(contains(appointmentDao.claimReminders(now, due), a), "Appointment should not be claimed twice");
+		assertTrue(appointmentDao.get(a.getId()).isReminderEmailSend(), "Reminded flag should be stored");
+	}
+
+	@Test
+	public void testNotDue() {
+		Appointment notDue = create(6 * FIVE_MINUTES, Reminder.ICAL);
+		Appointment noReminder = create(FIVE_MINUTES, Reminder.NONE);
+		Date now = new Date();
+
+		List<Appointment> claimed = appointmentDao.claimReminders(now, new Date(now.getTime() + 2 * FIVE_MINUTES));
+		assertFalse(contains(claimed, notDue), "Appointment not yet due should not be claimed");
+		assertFalse(contains(claimed, noReminder), "Appointment without reminder should not be claimed");
+		assertTrue(appointmentDao.get(noReminder.getId()).isReminderEmailSend()
+				, "Appointment without reminder should be skipped by subsequent runs");
+		assertFalse(appointmentDao.get(notDue.getId()).isReminderEmailSend(), "Appointment not yet due should stay pending");
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.basic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+
+import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TestChatDaoMocked {
+	private static final String POISON = "poison";
+	private final AtomicLong ids = new AtomicLong(1000);
+	private final User user = new User();
+	private boolean failing;
+	private Supplier<List<ChatMessage>> stored = ArrayList::new;
+	@Mock
+	private EntityManager em;
+	@Mock
+	private PlatformTransactionManager txManager;
+	@Mock
+	private TypedQuery<ChatMessage> query;
+	@InjectMocks
+	private ChatDao dao;
+
+	@BeforeEach
+	public void setUp() {
+		user.setId(1L);
+		doAnswer(invocation -> {
+			ChatMessage m = invocation.getArgument(0);
+			if (failing || POISON.equals(m.getMessage())) {
+				throw new PersistenceException("Unable to persist");
+			}
+			m.setId(ids.incrementAndGet());
+			return null;
+		}).when(em).persist(any(ChatMessage.class));
+		when(em.find(User.class, user.getId())).thenReturn(user);
+		when(em.createNamedQuery("getChatMessagesByRoom", ChatMessage.class)).thenReturn(query);
+		when(query.setParameter(anyString(), any())).thenReturn(query);
+		when(query.setFirstResult(anyInt())).thenReturn(query);
+		when(query.setMaxResults(anyInt())).thenReturn(query);
+		when(query.getResultList()).then(invocation -> stored.get());
+	}
+
+	private ChatMessage message(long roomId, String text) {
+		ChatMessage m = new ChatMessage();
+		Room r = new Room();
+		r.setId(roomId);
+		m.setToRoom(r);
+		m.setFromUser(user);
+		m.setFromName("user");
+		m.setMessage(text);
+		return m;
+	}
+
+	private List<ChatMessage> history(long roomId) {
+		return dao.getRoom(roomId, 0, ChatDao.HISTORY_SIZE, true);
+	}
+
+	@Test
+	public void testFlushAssignsId() {
+		assertEquals(0, history(101).size(), "History should be loaded empty");
+		ChatMessage m = dao.update(message(101, "hello"));
+		assertNull(m.getId(), "Message should be buffered");
+		assertNotNull(m.getUid(), "Buffered message should have uid");
+
+		List<ChatMessage> list = history(101);
+		assertEquals(1, list.size());
+		assertNull(list.get(0).getId(), "Buffered message should be served from history");
+		assertEquals(m.getUid(), list.get(0).getUid());
+
+		dao.flush();
+		assertEquals(0, dao.getPending());
+		list = history(101);
+		assertEquals(1, list.size(), "Flushed message should replace buffered one");
+		assertEquals(m.getId(), list.get(0).getId(), "History should contain ID of persisted message");
+		assertEquals(m.getUid(), list.get(0).getUid());
+		assertEquals(user.getId(), list.get(0).getFromUser().getId());
+	}
+
+	@Test
+	public void testAddWhileLoading() {
+		ChatMessage old = message(102, "old");
+		old.setId(500L);
+		old.setUid("old-uid");
+		old.setSent(new Date(System.currentTimeMillis() - 60_000));
+		stored = () -> {
+			// message is being added while history is read from the DB
+			dao.update(message(102, "new"));
+			return List.of(old);
+		};
+		history(102);
+		stored = ArrayList::new;
+
+		List<ChatMessage> list = history(102);
+		assertEquals(2, list.size(), "Message added during load should be merged");
+		assertEquals("new", list.get(0).getMessage(), "Newest message should be first");
+		assertEquals(old.getId(), list.get(1).getId());
+	}
+
+	@Test
+	public void testFailedBatchIsKept() {
+		history(103);
+		failing = true;
+		dao.update(message(103, "first"));
+		dao.update(message(103, "second"));
+		dao.flush();
+		assertEquals(2, dao.getPending(), "Messages should stay queued");
+		history(103).forEach(m -> assertNull(m.getId(), "Messages should not be persisted"));
+
+		failing = false;
+		dao.flush();
+		assertEquals(0, dao.getPending(), "Messages should be persisted");
+		history(103).forEach(m -> assertNotNull(m.getId(), "History should contain persisted messages"));
+	}
+
+	@Test
+	public void testPoisonIsDropped() {
+		history(104);
+		dao.update(message(104, POISON));
+		ChatMessage ok = dao.update(message(104, "ok"));
+		dao.flush();
+		assertNotNull(ok.getId(), "Valid message should be persisted");
+		assertEquals(1, dao.getPending(), "Failed message should be retried");
+		dao.flush();
+		dao.flush();
+		assertEquals(0, dao.getPending(), "Message failed too many times should be dropped");
+	}
+
+	@Test
+	public void testHistoryDoesNotQuerySenders() {
+		history(105);
+		dao.update(message(105, "one"));
+		dao.update(message(105, "two"));
+		dao.flush();
+		for (int i = 0; i < 5; ++i) {
+			history(105).forEach(m -> assertEquals(user.getId(), m.getFromUser().getId()));
+		}
+		// sender is resolved once and cached
+		verify(em, atMost(1)).find(eq(User.class), any());
+	}
+}
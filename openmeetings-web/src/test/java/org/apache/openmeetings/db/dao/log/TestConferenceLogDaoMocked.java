@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.apache.openmeetings.db.entity.log.ConferenceLog;
+import org.apache.openmeetings.db.entity.log.ConferenceLog.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TestConferenceLogDaoMocked {
+	private static final String POISON = "poison";
+	private final List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+	@Mock
+	private EntityManager em;
+	@Mock
+	private PlatformTransactionManager txManager;
+	@InjectMocks
+	private ConferenceLogDao dao;
+
+	@BeforeEach
+	public void setUp() {
+		doAnswer(invocation -> {
+			ConferenceLog l = invocation.getArgument(0);
+			if (POISON.equals(l.getStreamId())) {
+				throw new PersistenceException("Invalid entry");
+			}
+			Thread.sleep(1); // slow database
+			persisted.add(l.getStreamId());
+			return null;
+		}).when(em).persist(any(ConferenceLog.class));
+		dao.init();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		dao.destroy();
+	}
+
+	private List<String> add(int count) {
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			String id = "stream" + i;
+			dao.add(Type.ROOM_ENTER, 1L, id, 2L, "127.0.0.1", "2");
+			expected.add(id);
+		}
+		return expected;
+	}
+
+	@Test
+	public void testOrderAndFlush() {
+		List<String> expected = add(500);
+		dao.flush();
+		assertEquals(expected, new ArrayList<>(persisted), "All entries should be written in order they were added");
+	}
+
+	@Test
+	public void testShutdown() {
+		List<String> expected = add(300);
+		dao.destroy();
+		assertEquals(expected, new ArrayList<>(persisted), "Queued entries should be written on shutdown");
+
+		dao.add(Type.ROOM_LEAVE, 1L, "last", 2L, "127.0.0.1", "2");
+		assertEquals(1, dao.getDirect(), "Entry should be written directly after shutdown");
+		assertEquals("last", persisted.get(persisted.size() - 1));
+	}
+
+	@Test
+	public void testFailedEntryIsSkipped() {
+		dao.add(Type.ROOM_ENTER, 1L, POISON, 2L, "127.0.0.1", "2");
+		List<String> expected = add(10);
+		dao.flush();
+		assertEquals(expected, new ArrayList<>(persisted), "Valid entries should be written");
+		assertEquals(1, dao.getFailed(), "Invalid entry should be counted as failed");
+	}
+}
@@ -215,11 +215,11 @@ public class FileWebService extends BaseWebService {
 
 			// Home File List
 			List<FileItem> fList = fileDao.getByOwner(sd.getUserId());
-			fileExplorerObject.setUser(fList, fileDao.getSize(fList));
+			fileExplorerObject.setUser(fList, fileDao.getOwnSize(sd.getUserId()));
 
 			// Public File List
 			List<FileItem> rList = fileDao.getByRoom(roomId);
-			fileExplorerObject.setRoom(rList, fileDao.getSize(rList));
+			fileExplorerObject.setRoom(rList, fileDao.getRoomSize(roomId));
 
 			return fileExplorerObject;
 		});